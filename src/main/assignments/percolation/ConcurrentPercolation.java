@@ -0,0 +1,235 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Same as {@link Percolation}, but any number of threads may open sites and query the grid at once without locking.
+ * Like {@link Percolation}, it has a virtual top node only, and every union-find element has a flag whether it touches
+ * the bottom row, so {@link #isFull(int, int)} has no backwash.
+ * <p>
+ * Open sites are kept in an atomic bitset with the same layout {@link Percolation} uses. Every thread sets the bit of
+ * its site before checking the neighbours, so out of two neighbours opened at once at least one sees the other and
+ * joins their components.
+ * <p>
+ * Components are kept in a concurrent union-find (Jayanti and Tarjan): roots are linked with a single CAS, the one of
+ * the lower priority to the other one. A root which touches the bottom always has the higher priority than the one
+ * which doesn't, otherwise priorities are a fixed pseudo-random order of indexes, so trees stay shallow without ranks.
+ * Flag of a bottom row site is set before the site is marked as open, so nobody can link it before that and flags
+ * never change for visible roots. Hence the root of a component which touches the bottom is always flagged itself,
+ * without a separate step which would copy flags after the link and let other threads see the component without
+ * the flag in between. {@code find} shortens paths by splitting: every visited element is CAS-ed to its grandparent,
+ * a failed CAS only means another thread has already changed it.
+ * <p>
+ * Every single union is atomic, and {@link #percolates()} and {@link #isFull(int, int)} are atomic with respect to
+ * unions: each answer is the one of the union-find at some moment during the query. {@link #open(int, int)} isn't
+ * atomic though: it sets the bit of the site and then joins it with every open neighbour by a separate union, so a
+ * query running at the same time may see the site joined with some of its neighbours only (e.g. the site full, but
+ * an open neighbour it's about to be joined with not full yet). A query which starts after {@code open} returns sees
+ * all the connections that call has made, so once all the sites are opened, the answers are the same
+ * {@link Percolation} gives.
+ *
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+public class ConcurrentPercolation {
+
+    private final AtomicLongArray grid;
+
+    private final int gridSize;
+
+    private final int wordsPerRow;
+
+    /**
+     * Parent of every element of the union-find, roots are their own parents
+     */
+    private final AtomicIntegerArray parent;
+
+    /**
+     * Bit per union-find element, whether it's a site of the bottom row. Bottom sites are flagged before they get
+     * open, and a flagged root is never linked to an unflagged one, so roots of components which touch the bottom are
+     * always flagged.
+     */
+    private final AtomicLongArray touchesBottom;
+
+    public ConcurrentPercolation(int N) {
+
+        if (N <= 0) {
+            throw new IllegalArgumentException("Bad value for grid size provided!");
+        }
+
+        if ((long) N * N + 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid is too large!");
+        }
+
+        gridSize = N;
+        wordsPerRow = (gridSize + Long.SIZE - 1) / Long.SIZE;
+        grid = new AtomicLongArray(gridSize * wordsPerRow);
+        parent = new AtomicIntegerArray(gridSize * gridSize + 1);
+        touchesBottom = new AtomicLongArray((gridSize * gridSize + Long.SIZE) / Long.SIZE);
+
+        for (int i = 0; i < parent.length(); i++) {
+            parent.set(i, i);
+        }
+    }
+
+    /**
+     * Returns whether the component of the virtual top touches the bottom. If the root found isn't flagged, the answer
+     * is "no" only if it's still a root, the same way {@link #sameSet(int, int)} does.
+     */
+    public boolean percolates() {
+        while (true) {
+            int root = find(0);
+
+            if (isBottom(root)) {
+                return true;
+            }
+
+            if (parent.get(root) == root) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Opens the site, may be called by any number of threads at once. Opening a site which is already open is allowed
+     * and joins it with its neighbours again, so it doesn't return before the thread which opened it first is done.
+     */
+    public void open(int i, int j) {
+        validateIndex(i, j);
+
+        int site = quNormalizeIndex(i, j);
+
+        // has to be done before the site gets open, as flags of roots which others may link must not change
+        if (i == gridSize) {
+            setBit(touchesBottom, site >>> 6, 1L << site);
+        }
+
+        setBit(grid, wordIndex(i, j), 1L << (j - 1));
+
+        if (i == 1) {
+            union(site, 0);
+        }
+
+        if (i > 1 && isOpenSite(i - 1, j)) {
+            union(site, site - gridSize);
+        }
+
+        if (j < gridSize && isOpenSite(i, j + 1)) {
+            union(site, site + 1);
+        }
+
+        if (i < gridSize && isOpenSite(i + 1, j)) {
+            union(site, site + gridSize);
+        }
+
+        if (j > 1 && isOpenSite(i, j - 1)) {
+            union(site, site - 1);
+        }
+    }
+
+    public boolean isOpen(int i, int j) {
+        validateIndex(i, j);
+        return isOpenSite(i, j);
+    }
+
+    public boolean isFull(int i, int j) {
+        return isOpen(i, j) && sameSet(0, quNormalizeIndex(i, j));
+    }
+
+    private int find(int p) {
+        while (true) {
+            int parentP = parent.get(p);
+            int grandparent = parent.get(parentP);
+
+            if (parentP == grandparent) {
+                return parentP;
+            }
+
+            parent.compareAndSet(p, parentP, grandparent);
+            p = parentP;
+        }
+    }
+
+    private void union(int p, int q) {
+        while (true) {
+            p = find(p);
+            q = find(q);
+
+            if (p == q) {
+                return;
+            }
+
+            if (isBottom(p) != isBottom(q) ? isBottom(p) : priority(p) > priority(q)) {
+                int tmp = p;
+                p = q;
+                q = tmp;
+            }
+
+            // fails if p isn't a root anymore, then the roots are looked for again
+            if (parent.compareAndSet(p, p, q)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Roots found for {@code p} and {@code q} may be outdated by the time both of them are found. If they differ, the
+     * answer is "no" only if the root of {@code p} is still a root: then it was a root all the time in between and the
+     * components really were different when the root of {@code q} was found.
+     */
+    private boolean sameSet(int p, int q) {
+        while (true) {
+            p = find(p);
+            q = find(q);
+
+            if (p == q) {
+                return true;
+            }
+
+            if (parent.get(p) == p) {
+                return false;
+            }
+        }
+    }
+
+    private boolean isBottom(int p) {
+        return (touchesBottom.get(p >>> 6) & (1L << p)) != 0;
+    }
+
+    private static void setBit(AtomicLongArray bitset, int word, long bit) {
+        long bits = bitset.get(word);
+
+        while ((bits & bit) == 0 && !bitset.compareAndSet(word, bits, bits | bit)) {
+            bits = bitset.get(word);
+        }
+    }
+
+    /**
+     * Fixed pseudo-random order of the elements: multiplying by an odd number and xor-shifting are both bijections, so
+     * no two elements have the same priority
+     */
+    private static int priority(int p) {
+        int hash = p * 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Same as {@link #isOpen(int, int)}, but doesn't validate indexes
+     */
+    private boolean isOpenSite(int i, int j) {
+        return (grid.get(wordIndex(i, j)) & (1L << (j - 1))) != 0;
+    }
+
+    private int wordIndex(int i, int j) {
+        return (i - 1) * wordsPerRow + ((j - 1) >>> 6);
+    }
+
+    private int quNormalizeIndex(int i, int j) {
+        return (i - 1) * gridSize + j;
+    }
+
+    private void validateIndex(int i, int j) {
+
+        if (i < 1 || i > gridSize || j < 1 || j > gridSize) {
+            throw new IndexOutOfBoundsException("Value has to be between 1 and " + gridSize + " " + i + " " + j);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+import com.vojtoshik.coursera.algorithms.unionfind.UnionFind;
+import edu.princeton.cs.algs4.StdStats;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hoshen-Kopelman labeling of clusters of open sites of an N-by-N grid. A single raster scan gives every open site a
+ * provisional label: the one of its left or upper neighbour, or a new one if neither of them is open. If both are
+ * open, their labels are merged in a union-find over labels, which also keeps size of every cluster. A second pass
+ * replaces provisional labels with cluster numbers {@code 1..clustersNumber()}, blocked sites get 0.
+ * <p>
+ * Grid is a bitset with the same layout {@link Percolation} uses: every row starts with a new word, so site (i, j) is
+ * bit {@code (j - 1) % 64} of word {@code (i - 1) * ceil(N / 64) + (j - 1) / 64}.
+ *
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+public class HoshenKopelman {
+
+    private final int gridSize;
+
+    /**
+     * Cluster number of every site, row by row, 0 for blocked sites
+     */
+    private final int[] labels;
+
+    /**
+     * Size of every cluster, element 0 isn't used
+     */
+    private final int[] clusterSizes;
+
+    private final int[] spanningClusters;
+
+    public HoshenKopelman(int N, long[] grid) {
+
+        if (N <= 0) {
+            throw new IllegalArgumentException("Bad value for grid size provided!");
+        }
+
+        if ((long) N * N > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid is too large!");
+        }
+
+        int wordsPerRow = wordsPerRow(N);
+
+        if (grid.length != N * wordsPerRow) {
+            throw new IllegalArgumentException("Grid has to have " + N * wordsPerRow + " words, not " + grid.length);
+        }
+
+        gridSize = N;
+        labels = new int[N * N];
+
+        // no two neighbours in a row get new labels, so there are at most ceil(N / 2) new labels per row
+        int maxLabels = N * ((N + 1) / 2);
+        UnionFind unionFind = new UnionFind(maxLabels);
+        int[] sizes = new int[maxLabels];
+        int labelsNumber = 0;
+
+        for (int i = 0; i < N; i++) {
+            for (int word = 0; word < wordsPerRow; word++) {
+                long bits = grid[i * wordsPerRow + word];
+
+                // only open sites are visited, lowest bits first
+                while (bits != 0) {
+                    int j = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+
+                    if (j >= N) {
+                        throw new IllegalArgumentException("Bits beyond the last column have to be clear!");
+                    }
+
+                    int site = i * N + j;
+                    int left = j > 0 ? labels[site - 1] : 0;
+                    int up = i > 0 ? labels[site - N] : 0;
+                    int root;
+
+                    if (left == 0 && up == 0) {
+                        root = labelsNumber++;
+                    } else if (left == 0 || up == 0) {
+                        root = unionFind.find(left + up - 1);
+                    } else {
+                        int leftRoot = unionFind.find(left - 1);
+                        int upRoot = unionFind.find(up - 1);
+                        root = unionFind.union(leftRoot, upRoot);
+
+                        if (leftRoot != upRoot) {
+                            sizes[root] = sizes[leftRoot] + sizes[upRoot];
+                        }
+                    }
+
+                    sizes[root]++;
+                    labels[site] = root + 1;
+                }
+            }
+        }
+
+        int[] clusterNumbers = new int[labelsNumber];
+        int[] clusters = new int[labelsNumber + 1];
+        int clustersNumber = 0;
+
+        for (int site = 0; site < labels.length; site++) {
+
+            if (labels[site] == 0) {
+                continue;
+            }
+
+            int root = unionFind.find(labels[site] - 1);
+
+            if (clusterNumbers[root] == 0) {
+                clusterNumbers[root] = ++clustersNumber;
+                clusters[clustersNumber] = sizes[root];
+            }
+
+            labels[site] = clusterNumbers[root];
+        }
+
+        clusterSizes = Arrays.copyOf(clusters, clustersNumber + 1);
+        spanningClusters = findSpanningClusters();
+    }
+
+    /**
+     * Runs T experiments on random N-by-N grids with every site open with probability p and prints spanning
+     * probability and cluster statistics
+     */
+    public static void main(String[] args) {
+
+        if (args.length < 3) {
+            throw new IllegalArgumentException("N, T and p values have to be provided!");
+        }
+
+        int N = Integer.parseInt(args[0]);
+        int T = Integer.parseInt(args[1]);
+        double p = Double.parseDouble(args[2]);
+
+        if (T <= 0) {
+            throw new IllegalArgumentException("Bad input arguments!");
+        }
+
+        SplittableRandom random = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+        double[] largestClusters = new double[T];
+        long[] histogram = new long[0];
+        long clusters = 0;
+        int spanningTrials = 0;
+
+        for (int t = 0; t < T; t++) {
+            HoshenKopelman labeling = new HoshenKopelman(N, randomGrid(N, p, random));
+
+            if (labeling.percolates()) {
+                spanningTrials++;
+            }
+
+            clusters += labeling.clustersNumber();
+            largestClusters[t] = (double) labeling.largestClusterSize() / N / N;
+
+            int[] trialHistogram = labeling.sizeHistogram();
+
+            if (trialHistogram.length > histogram.length) {
+                histogram = Arrays.copyOf(histogram, trialHistogram.length);
+            }
+
+            for (int s = 0; s < trialHistogram.length; s++) {
+                histogram[s] += trialHistogram[s];
+            }
+        }
+
+        System.out.println("spanning probability = " + (double) spanningTrials / T);
+        System.out.println("clusters per site = " + (double) clusters / T / N / N);
+        System.out.println("largest cluster fraction = " + StdStats.mean(largestClusters)
+                + ", stddev = " + StdStats.stddev(largestClusters));
+        System.out.println("size\tclusters per site");
+
+        for (int s = 1; s < histogram.length; s++) {
+            if (histogram[s] > 0) {
+                System.out.println(s + "\t" + (double) histogram[s] / T / N / N);
+            }
+        }
+    }
+
+    /**
+     * Returns N-by-N grid in the layout the constructor takes, with every site open with probability {@code p}
+     */
+    public static long[] randomGrid(int N, double p, SplittableRandom random) {
+
+        if (N <= 0 || p < 0 || p > 1) {
+            throw new IllegalArgumentException("Bad input arguments!");
+        }
+
+        int wordsPerRow = wordsPerRow(N);
+        long[] grid = new long[N * wordsPerRow];
+
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (random.nextDouble() < p) {
+                    grid[i * wordsPerRow + (j >>> 6)] |= 1L << j;
+                }
+            }
+        }
+
+        return grid;
+    }
+
+    /**
+     * Returns number of the cluster site (i, j) belongs to, or 0 if it's blocked
+     */
+    public int cluster(int i, int j) {
+
+        if (i < 1 || i > gridSize || j < 1 || j > gridSize) {
+            throw new IndexOutOfBoundsException("Value has to be between 1 and " + gridSize + " " + i + " " + j);
+        }
+
+        return labels[(i - 1) * gridSize + j - 1];
+    }
+
+    public int clustersNumber() {
+        return clusterSizes.length - 1;
+    }
+
+    /**
+     * Returns number of sites in the cluster
+     *
+     * @param cluster number of the cluster, between 1 and {@link #clustersNumber()}
+     * @return
+     */
+    public int clusterSize(int cluster) {
+
+        if (cluster < 1 || cluster > clustersNumber()) {
+            throw new IndexOutOfBoundsException("Value has to be between 1 and " + clustersNumber() + " " + cluster);
+        }
+
+        return clusterSizes[cluster];
+    }
+
+    public int largestClusterSize() {
+        int largest = 0;
+
+        for (int size : clusterSizes) {
+            largest = Math.max(largest, size);
+        }
+
+        return largest;
+    }
+
+    /**
+     * Returns array which has number of clusters of size {@code s} at index {@code s}, its last element is the number
+     * of the largest clusters
+     */
+    public int[] sizeHistogram() {
+        int[] histogram = new int[largestClusterSize() + 1];
+
+        for (int cluster = 1; cluster < clusterSizes.length; cluster++) {
+            histogram[clusterSizes[cluster]]++;
+        }
+
+        return histogram;
+    }
+
+    /**
+     * Returns numbers of the clusters which contain sites of both the top and the bottom rows, in ascending order
+     */
+    public int[] spanningClusters() {
+        return spanningClusters.clone();
+    }
+
+    public boolean percolates() {
+        return spanningClusters.length > 0;
+    }
+
+    private int[] findSpanningClusters() {
+        boolean[] touchesTop = new boolean[clusterSizes.length];
+        boolean[] spanning = new boolean[clusterSizes.length];
+        int bottomRow = (gridSize - 1) * gridSize;
+        int spanningNumber = 0;
+
+        for (int j = 0; j < gridSize; j++) {
+            touchesTop[labels[j]] = true;
+        }
+
+        for (int j = 0; j < gridSize; j++) {
+            int cluster = labels[bottomRow + j];
+
+            if (cluster != 0 && touchesTop[cluster] && !spanning[cluster]) {
+                spanning[cluster] = true;
+                spanningNumber++;
+            }
+        }
+
+        int[] clusters = new int[spanningNumber];
+
+        for (int cluster = 1, k = 0; k < spanningNumber; cluster++) {
+            if (spanning[cluster]) {
+                clusters[k++] = cluster;
+            }
+        }
+
+        return clusters;
+    }
+
+    private static int wordsPerRow(int N) {
+        return (N + Long.SIZE - 1) / Long.SIZE;
+    }
+}
@@ -0,0 +1,311 @@
+import com.vojtoshik.coursera.algorithms.unionfind.UnionFind;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Newman-Ziff percolation experiment. Every trial opens all the sites of the grid one by one in random order and
+ * records, after every opened site, whether the grid spans already, size of the largest cluster and mean cluster size.
+ * Averaged over trials, these give the values as functions of the number n of open sites, and values for occupation
+ * probability p are their convolution with the binomial distribution of n, so a single run gives whole curves instead
+ * of a separate experiment for every p.
+ * <p>
+ * Clusters are tracked with a union-find without virtual top and bottom nodes (they would glue distinct clusters
+ * together), instead every root keeps size of its cluster and flags whether the cluster touches the top and the bottom
+ * rows.
+ *
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+public class NewmanZiffPercolation {
+
+    private static final byte TOUCHES_TOP = 1;
+
+    private static final byte TOUCHES_BOTTOM = 2;
+
+    private static final byte SPANS = TOUCHES_TOP | TOUCHES_BOTTOM;
+
+    /**
+     * Terms of the binomial convolution which weigh less than this (relative to the most probable one) are dropped
+     */
+    private static final double NEGLIGIBLE_WEIGHT = 1e-17;
+
+    private final int gridSize;
+
+    private final int sitesNumber;
+
+    /**
+     * Fraction of trials which span with {@code n} open sites
+     */
+    private final double[] spanning;
+
+    /**
+     * Mean fraction of sites in the largest cluster with {@code n} open sites
+     */
+    private final double[] largestCluster;
+
+    /**
+     * Mean size of the cluster a random open site belongs to, with {@code n} open sites
+     */
+    private final double[] meanClusterSize;
+
+    private double mean;
+
+    public NewmanZiffPercolation(int N, int T) {
+        this(N, T, ThreadLocalRandom.current().nextLong());
+    }
+
+    public NewmanZiffPercolation(int N, int T, long seed) {
+
+        if (T <= 0 || N <= 0) {
+            throw new IllegalArgumentException("Bad input arguments!");
+        }
+
+        if ((long) N * N >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid is too large!");
+        }
+
+        gridSize = N;
+        sitesNumber = N * N;
+        spanning = new double[sitesNumber + 1];
+        largestCluster = new double[sitesNumber + 1];
+        meanClusterSize = new double[sitesNumber + 1];
+
+        Trial trial = new Trial();
+        SplittableRandom random = new SplittableRandom(seed);
+
+        for (int i = 0; i < T; i++) {
+            trial.run(random);
+        }
+
+        // spanning[] holds number of trials which started spanning with n sites so far
+        double spanningTrials = 0;
+
+        for (int n = 0; n <= sitesNumber; n++) {
+            mean += spanning[n] * n / sitesNumber / T;
+            spanningTrials += spanning[n];
+            spanning[n] = spanningTrials / T;
+            largestCluster[n] /= T;
+            meanClusterSize[n] /= T;
+        }
+    }
+
+    public static void main(String[] args) {
+
+        if (args.length < 2) {
+            throw new IllegalArgumentException("N and T values have to be provided!");
+        }
+
+        int N = Integer.parseInt(args[0]);
+        int T = Integer.parseInt(args[1]);
+        double from = args.length > 2 ? Double.parseDouble(args[2]) : 0.5;
+        double to = args.length > 3 ? Double.parseDouble(args[3]) : 0.7;
+        int steps = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+
+        NewmanZiffPercolation experiment = new NewmanZiffPercolation(N, T);
+
+        System.out.println("mean = " + experiment.mean());
+        System.out.println("p\tspanning\tlargest cluster\tmean cluster size");
+
+        for (int i = 0; i <= steps; i++) {
+            double p = from + (to - from) * i / steps;
+
+            System.out.println(p + "\t" + experiment.spanningProbability(p) + "\t"
+                    + experiment.largestClusterFraction(p) + "\t" + experiment.meanClusterSize(p));
+        }
+    }
+
+    /**
+     * Returns mean fraction of open sites at which the grid starts to percolate, the same value
+     * {@link PercolationStats#mean()} estimates
+     */
+    public double mean() {
+        return mean;
+    }
+
+    /**
+     * Returns probability that the grid percolates when every site is open with probability {@code p}
+     */
+    public double spanningProbability(double p) {
+        return convolve(spanning, p);
+    }
+
+    /**
+     * Returns mean fraction of all the sites which belong to the largest cluster, when every site is open with
+     * probability {@code p}
+     */
+    public double largestClusterFraction(double p) {
+        return convolve(largestCluster, p);
+    }
+
+    /**
+     * Returns mean size of the cluster a random open site belongs to (the largest one included), when every site is
+     * open with probability {@code p}
+     */
+    public double meanClusterSize(double p) {
+        return convolve(meanClusterSize, p);
+    }
+
+    /**
+     * Returns sum of {@code values[n]} weighted with binomial probabilities of having {@code n} open sites. Weights are
+     * computed from the most probable {@code n} outwards as ratios of the neighbouring ones, so they neither overflow
+     * nor underflow however large the grid is, and are normalized by their sum at the end.
+     */
+    private double convolve(double[] values, double p) {
+
+        if (p < 0 || p > 1) {
+            throw new IllegalArgumentException("Probability has to be between 0 and 1!");
+        }
+
+        if (p == 0 || p == 1) {
+            return values[p == 0 ? 0 : sitesNumber];
+        }
+
+        int mode = (int) Math.min(sitesNumber, Math.floor((sitesNumber + 1) * p));
+        double odds = p / (1 - p);
+
+        double sum = values[mode];
+        double weights = 1;
+        double weight = 1;
+
+        for (int n = mode; n < sitesNumber && weight > NEGLIGIBLE_WEIGHT; n++) {
+            weight *= (double) (sitesNumber - n) / (n + 1) * odds;
+            sum += weight * values[n + 1];
+            weights += weight;
+        }
+
+        weight = 1;
+
+        for (int n = mode; n > 0 && weight > NEGLIGIBLE_WEIGHT; n--) {
+            weight *= (double) n / (sitesNumber - n + 1) / odds;
+            sum += weight * values[n - 1];
+            weights += weight;
+        }
+
+        return sum / weights;
+    }
+
+    /**
+     * Memory for a single trial, allocated once and reused by all of them
+     */
+    private class Trial {
+
+        private final UnionFind unionFind = new UnionFind(sitesNumber);
+
+        private final long[] open = new long[(sitesNumber + Long.SIZE - 1) / Long.SIZE];
+
+        private final int[] sites = new int[sitesNumber];
+
+        /**
+         * Size of the cluster, valid for roots only
+         */
+        private final int[] size = new int[sitesNumber];
+
+        /**
+         * {@link #TOUCHES_TOP} and {@link #TOUCHES_BOTTOM} flags of the cluster, valid for roots only
+         */
+        private final byte[] flags = new byte[sitesNumber];
+
+        /**
+         * Sum of squared sizes of all the clusters
+         */
+        private long squaredSizes;
+
+        /**
+         * Opens all the sites in the order of a random permutation (generated lazily by Fisher-Yates shuffle, the same
+         * way {@link PercolationStats} does) and adds statistics after every opened site to the totals
+         */
+        void run(SplittableRandom random) {
+            unionFind.reset();
+            Arrays.fill(open, 0);
+
+            for (int i = 0; i < sitesNumber; i++) {
+                sites[i] = i;
+            }
+
+            squaredSizes = 0;
+            int largest = 0;
+            boolean spans = false;
+
+            for (int n = 1; n <= sitesNumber; n++) {
+                int randomIndex = n - 1 + random.nextInt(sitesNumber - n + 1);
+                int site = sites[randomIndex];
+
+                sites[randomIndex] = sites[n - 1];
+                sites[n - 1] = site;
+
+                int root = open(site);
+
+                largest = Math.max(largest, size[root]);
+
+                if (!spans && flags[root] == SPANS) {
+                    spans = true;
+                    spanning[n]++;
+                }
+
+                largestCluster[n] += (double) largest / sitesNumber;
+                meanClusterSize[n] += (double) squaredSizes / n;
+            }
+        }
+
+        /**
+         * Opens the site and merges it with its open neighbours, returns root of its cluster
+         */
+        private int open(int site) {
+            open[site >>> 6] |= 1L << site;
+
+            size[site] = 1;
+            flags[site] = (byte) ((site < gridSize ? TOUCHES_TOP : 0)
+                    | (site >= sitesNumber - gridSize ? TOUCHES_BOTTOM : 0));
+            squaredSizes++;
+
+            int root = site;
+            int column = site % gridSize;
+
+            if (site >= gridSize) {
+                root = merge(root, site - gridSize);
+            }
+
+            if (column < gridSize - 1) {
+                root = merge(root, site + 1);
+            }
+
+            if (site < sitesNumber - gridSize) {
+                root = merge(root, site + gridSize);
+            }
+
+            if (column > 0) {
+                root = merge(root, site - 1);
+            }
+
+            return root;
+        }
+
+        /**
+         * Merges cluster with the given root with cluster of {@code neighbour} if the latter is open, returns root of
+         * the resulting cluster
+         */
+        private int merge(int root, int neighbour) {
+
+            if ((open[neighbour >>> 6] & (1L << neighbour)) == 0) {
+                return root;
+            }
+
+            int neighbourRoot = unionFind.find(neighbour);
+
+            if (neighbourRoot == root) {
+                return root;
+            }
+
+            // (a + b)^2 = a^2 + b^2 + 2ab
+            squaredSizes += 2L * size[root] * size[neighbourRoot];
+
+            int merged = unionFind.union(root, neighbourRoot);
+
+            size[merged] = size[root] + size[neighbourRoot];
+            flags[merged] = (byte) (flags[root] | flags[neighbourRoot]);
+
+            return merged;
+        }
+    }
+}
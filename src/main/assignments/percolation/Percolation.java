@@ -1,15 +1,35 @@
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+import com.vojtoshik.coursera.algorithms.unionfind.UnionFind;
+
+import java.util.Arrays;
 
 /**
+ * Sites are joined in a union-find with a single virtual node at the top, so {@link #isFull(int, int)} has no
+ * backwash: sites which are connected to the bottom row only never look full. Instead of a virtual bottom node every
+ * root keeps a flag whether its component has a site of the bottom row, which is merged on every union, and the grid
+ * percolates once the component of the top gets the flag.
+ *
  * @author Anton Voitovych <vojtoshik@gmail.com>
  */
 public class Percolation {
 
-    private int[] grid;
+    /**
+     * Open sites, one bit per site. Every row starts with a new word, so site (i, j) is bit {@code (j - 1) % 64} of
+     * word {@code (i - 1) * wordsPerRow + (j - 1) / 64}.
+     */
+    private final long[] grid;
 
     private final int gridSize;
 
-    private final WeightedQuickUnionUF quickUnionContainer;
+    private final int wordsPerRow;
+
+    private final UnionFind quickUnionContainer;
+
+    /**
+     * Bit per union-find element, valid for roots only: whether the component has a site of the bottom row
+     */
+    private final long[] touchesBottom;
+
+    private boolean percolates;
 
     public Percolation(int N) {
 
@@ -17,70 +37,276 @@ public class Percolation {
             throw new IllegalArgumentException("Bad value for grid size provided!");
         }
 
+        if ((long) N * N + 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid is too large!");
+        }
+
         gridSize = N;
-        grid = new int[gridSize * gridSize];
-        quickUnionContainer = new WeightedQuickUnionUF(gridSize * gridSize + 2);
+        wordsPerRow = (gridSize + Long.SIZE - 1) / Long.SIZE;
+        grid = new long[gridSize * wordsPerRow];
+        quickUnionContainer = new UnionFind(gridSize * gridSize + 1);
+        touchesBottom = new long[(gridSize * gridSize + Long.SIZE) / Long.SIZE];
+    }
+
+    /**
+     * Closes all the sites, so the same instance (and its memory) may be used for another experiment
+     */
+    void reset() {
+        Arrays.fill(grid, 0);
+        quickUnionContainer.reset();
+        Arrays.fill(touchesBottom, 0);
+        percolates = false;
     }
 
+    /**
+     * Takes O(1) time, as the answer is updated by every {@code open} call
+     */
     public boolean percolates() {
-        return quickUnionContainer.connected(0, gridSize * gridSize + 1);
+        return percolates;
     }
 
     public void open(int i, int j) {
-        grid[normalizeIndex(i, j)] = 1;
+        validateIndex(i, j);
+        openSite(i, j);
+        updatePercolates();
+    }
 
-        if (i == 1) {
-            quickUnionContainer.union(
-                    quNormalizeIndex(i, j),
-                    0
-            );
+    /**
+     * Opens all the sites with the given indexes, where site (i, j) has index {@code (i - 1) * N + j - 1}. Indexes may
+     * repeat and go in any order: they are put into a bitset of the same layout the grid has first (covering only the
+     * rows between the first and the last touched ones), which sorts them by rows and drops duplicates in O(n) time,
+     * and then every row is opened the same way {@link #openRow(int, long[])} does. Batches which are sparse compared
+     * to those rows are opened site by site instead, as scanning the bitset would cost more than that.
+     *
+     * @param flatIndices
+     * @return whether the grid percolates after all the sites are opened
+     */
+    public boolean openAll(int[] flatIndices) {
+
+        if (flatIndices.length == 0) {
+            return percolates;
         }
 
-        if (i == gridSize) {
-            quickUnionContainer.union(
-                    quNormalizeIndex(i, j),
-                    gridSize * gridSize + 1
-            );
+        int firstRow = gridSize;
+        int lastRow = -1;
+
+        for (int index : flatIndices) {
+
+            if (index < 0 || index >= gridSize * gridSize) {
+                throw new IndexOutOfBoundsException("Index has to be between 0 and " + (gridSize * gridSize - 1)
+                        + " " + index);
+            }
+
+            firstRow = Math.min(firstRow, index / gridSize);
+            lastRow = Math.max(lastRow, index / gridSize);
+        }
+
+        int maskWords = (lastRow - firstRow + 1) * wordsPerRow;
+
+        if (flatIndices.length < maskWords) {
+            for (int index : flatIndices) {
+                openSite(index / gridSize + 1, index % gridSize + 1);
+            }
+        } else {
+            long[] mask = new long[maskWords];
+
+            for (int index : flatIndices) {
+                int row = index / gridSize;
+                int column = index - row * gridSize;
+
+                mask[(row - firstRow) * wordsPerRow + (column >>> 6)] |= 1L << column;
+            }
+
+            for (int row = firstRow; row <= lastRow; row++) {
+                openSites(row + 1, mask, (row - firstRow) * wordsPerRow);
+            }
+        }
+
+        updatePercolates();
+
+        return percolates;
+    }
+
+    /**
+     * Opens sites of the row i given as a mask in the same layout the grid has: site (i, j) is bit {@code (j - 1) % 64}
+     * of word {@code (j - 1) / 64}.
+     *
+     * @param i
+     * @param mask {@code ceil(N / 64)} words, bits beyond column N have to be clear
+     * @return whether the grid percolates after all the sites are opened
+     */
+    public boolean openRow(int i, long[] mask) {
+        validateIndex(i, 1);
+
+        if (mask.length != wordsPerRow) {
+            throw new IllegalArgumentException("Mask has to have " + wordsPerRow + " words, not " + mask.length);
+        }
+
+        if (gridSize % Long.SIZE != 0 && mask[wordsPerRow - 1] >>> (gridSize % Long.SIZE) != 0) {
+            throw new IndexOutOfBoundsException("Mask has sites beyond column " + gridSize);
         }
 
-        makeConnection(i, j, i - 1, j);
-        makeConnection(i, j, i, j + 1);
-        makeConnection(i, j, i + 1, j);
-        makeConnection(i, j, i, j - 1);
+        openSites(i, mask, 0);
+        updatePercolates();
+
+        return percolates;
     }
 
     public boolean isOpen(int i, int j) {
-        return grid[normalizeIndex(i, j)] == 1;
+        validateIndex(i, j);
+        return isOpenSite(i, j);
     }
 
     public boolean isFull(int i, int j) {
-        return grid[normalizeIndex(i, j)] == 1 && quickUnionContainer.connected(0, quNormalizeIndex(i, j));
+        return isOpen(i, j) && quickUnionContainer.connected(0, quNormalizeIndex(i, j));
+    }
+
+    /**
+     * Same as {@link #open(int, int)}, but doesn't validate indexes and doesn't update {@link #percolates}
+     */
+    private void openSite(int i, int j) {
+        grid[wordIndex(i, j)] |= 1L << (j - 1);
+
+        int site = quNormalizeIndex(i, j);
+
+        if (i == 1) {
+            connect(site, 0);
+        }
+
+        if (i == gridSize) {
+            markBottom(site);
+        }
+
+        // neighbours are checked explicitly, so sites on the edges don't cost more than the others
+        if (i > 1 && isOpenSite(i - 1, j)) {
+            connect(site, site - gridSize);
+        }
+
+        if (j < gridSize && isOpenSite(i, j + 1)) {
+            connect(site, site + 1);
+        }
+
+        if (i < gridSize && isOpenSite(i + 1, j)) {
+            connect(site, site + gridSize);
+        }
+
+        if (j > 1 && isOpenSite(i, j - 1)) {
+            connect(site, site - 1);
+        }
     }
 
-    private void makeConnection(int i1, int j1, int i2, int j2) {
-        try {
-            if (isOpen(i2, j2)) {
-                quickUnionContainer.union(
-                        quNormalizeIndex(i1, j1),
-                        quNormalizeIndex(i2, j2)
-                );
+    /**
+     * Opens sites of the row given by the mask (starting at {@code maskOffset}) without validating it. Only sites which
+     * weren't open before are joined with their neighbours. Every such site is joined to its left neighbour if it's
+     * open, so runs of new sites get joined one by one, and to the right one only if it was open before, as new ones
+     * join their left neighbours themselves. Neighbours above and below (virtual top and bottom included) are skipped
+     * if the left neighbour is open and connected to them (or marked as touching the bottom) already, so a run
+     * overlapping open sites of the next row costs one union per overlap.
+     */
+    private void openSites(int i, long[] mask, int maskOffset) {
+        int rowOffset = (i - 1) * wordsPerRow;
+        int firstSite = quNormalizeIndex(i, 1);
+
+        for (int word = 0; word < wordsPerRow; word++) {
+            long oldBits = grid[rowOffset + word];
+            long newBits = mask[maskOffset + word] & ~oldBits;
+
+            grid[rowOffset + word] = oldBits | newBits;
+
+            while (newBits != 0) {
+                int bit = Long.numberOfTrailingZeros(newBits);
+                newBits &= newBits - 1;
+
+                int j = word * Long.SIZE + bit + 1;
+                int site = firstSite + j - 1;
+
+                // the next word isn't updated yet, so it has the old bits still
+                boolean rightWasOpen = bit < Long.SIZE - 1 ? (oldBits & (2L << bit)) != 0
+                        : word + 1 < wordsPerRow && (grid[rowOffset + word + 1] & 1L) != 0;
+                boolean leftOpen = j > 1 && isOpenSite(i, j - 1);
+
+                if (leftOpen) {
+                    connect(site, site - 1);
+                }
+
+                if (rightWasOpen) {
+                    connect(site, site + 1);
+                }
+
+                if (i == 1 && !leftOpen) {
+                    connect(site, 0);
+                }
+
+                if (i == gridSize && !leftOpen) {
+                    markBottom(site);
+                }
+
+                if (i > 1 && isOpenSite(i - 1, j) && !(leftOpen && isOpenSite(i - 1, j - 1))) {
+                    connect(site, site - gridSize);
+                }
+
+                if (i < gridSize && isOpenSite(i + 1, j) && !(leftOpen && isOpenSite(i + 1, j - 1))) {
+                    connect(site, site + gridSize);
+                }
             }
-        } catch (IndexOutOfBoundsException e) {
-            // i2, j2 indexes specify square outside of the grid
-            // we just ignore that
         }
     }
 
+    /**
+     * Joins components of two open sites (or of an open site and the virtual top), the only place the union-find is
+     * changed at. The merged component touches the bottom if any of the two did.
+     */
+    private void connect(int site, int neighbour) {
+        int siteRoot = quickUnionContainer.find(site);
+        int neighbourRoot = quickUnionContainer.find(neighbour);
+
+        if (siteRoot == neighbourRoot) {
+            return;
+        }
+
+        boolean bottom = isBottomRoot(siteRoot) || isBottomRoot(neighbourRoot);
+        int root = quickUnionContainer.union(siteRoot, neighbourRoot);
+
+        if (bottom) {
+            touchesBottom[root >>> 6] |= 1L << root;
+        }
+    }
+
+    private void markBottom(int site) {
+        int root = quickUnionContainer.find(site);
+        touchesBottom[root >>> 6] |= 1L << root;
+    }
+
+    private boolean isBottomRoot(int root) {
+        return (touchesBottom[root >>> 6] & (1L << root)) != 0;
+    }
+
+    /**
+     * Components never split, so once the grid percolates it stays so
+     */
+    private void updatePercolates() {
+        percolates = percolates || isBottomRoot(quickUnionContainer.find(0));
+    }
+
+    /**
+     * Same as {@link #isOpen(int, int)}, but doesn't validate indexes
+     */
+    private boolean isOpenSite(int i, int j) {
+        return (grid[wordIndex(i, j)] & (1L << (j - 1))) != 0;
+    }
+
+    private int wordIndex(int i, int j) {
+        return (i - 1) * wordsPerRow + ((j - 1) >>> 6);
+    }
+
     private int quNormalizeIndex(int i, int j) {
-        return normalizeIndex(i, j) + 1;
+        return (i - 1) * gridSize + j;
     }
 
-    private int normalizeIndex(int i, int j) {
+    private void validateIndex(int i, int j) {
 
         if (i < 1 || i > gridSize || j < 1 || j > gridSize) {
             throw new IndexOutOfBoundsException("Value has to be between 1 and " + gridSize + " " + i + " " + j);
         }
-
-        return (i - 1) * gridSize + j - 1;
     }
 }
@@ -1,42 +1,277 @@
-import edu.princeton.cs.algs4.StdStats;
-
-import java.util.Random;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Anton Voitovych <vojtoshik@gmail.com>
  */
 public class PercolationStats {
 
-    private final double[] results;
+    /**
+     * System property with the number of threads trials are run on, used if it isn't passed to {@link #main(String[])}
+     */
+    private static final String WORKERS_PROPERTY = "percolation.workers";
+
+    /**
+     * System property with the target width of the confidence interval, if it's set {@link #main(String[])} runs
+     * trials until the interval gets that narrow and T is the maximum number of trials
+     */
+    private static final String PRECISION_PROPERTY = "percolation.precision";
+
+    /**
+     * System property with the time limit of adaptive runs in milliseconds
+     */
+    private static final String TIME_BUDGET_PROPERTY = "percolation.timeBudget";
+
+    /**
+     * System property with the path of the checkpoint file. If it's set, {@link #main(String[])} resumes the run from
+     * the file if it exists and starts a new checkpointed run otherwise.
+     */
+    private static final String CHECKPOINT_PROPERTY = "percolation.checkpoint";
+
+    /**
+     * System property with the time between checkpoints in milliseconds
+     */
+    private static final String CHECKPOINT_INTERVAL_PROPERTY = "percolation.checkpointInterval";
+
+    private static final long DEFAULT_CHECKPOINT_INTERVAL_MILLIS = 60_000;
+
+    /**
+     * Checkpoint is written earlier if this number of trials completes before the interval is over
+     */
+    private static final int MAX_CHECKPOINT_BATCH = 1 << 16;
+
+    /**
+     * "PERC" in ASCII
+     */
+    private static final int CHECKPOINT_MAGIC = 0x50455243;
+
+    private static final int CHECKPOINT_VERSION = 1;
+
+    /**
+     * Magic, version, N, T and the seed
+     */
+    private static final int CHECKPOINT_HEADER_SIZE = 4 * Integer.BYTES + Long.BYTES;
+
+    /**
+     * Index of the trial and its result
+     */
+    private static final int CHECKPOINT_ENTRY_SIZE = Integer.BYTES + Double.BYTES;
+
+    /**
+     * Number of completed trials, their mean and sum of squared deviations
+     */
+    private static final int CHECKPOINT_AGGREGATES_SIZE = Long.BYTES + 2 * Double.BYTES;
+
+    /**
+     * Adaptive runs never stop before this number of trials (unless they are out of the limits), as the standard
+     * deviation estimated from fewer of them is too rough to rely on
+     */
+    private static final int MIN_ADAPTIVE_TRIALS = 30;
+
+    private static final double CONFIDENCE_95 = 1.96;
 
-    private double mean;
+    private final int trials;
 
-    private double stddev;
+    private final double mean;
+
+    private final double stddev;
 
     public PercolationStats(int N, int T) {
+        this(N, T, 1);
+    }
+
+    public PercolationStats(int N, int T, int workers) {
+        this(N, T, workers, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Runs trials on {@code workers} threads. Every trial takes random numbers from its own generator, which is seeded
+     * with {@link #trialSeed(long, int)}, so results only depend on {@code seed}, not on the number of workers or on
+     * which worker runs which trial.
+     *
+     * @param N
+     * @param T
+     * @param workers
+     * @param seed
+     */
+    public PercolationStats(int N, int T, int workers, long seed) {
+        this(runFixedTrials(N, T, workers, seed));
+    }
+
+    private PercolationStats(RunningStatistics statistics) {
+        trials = (int) statistics.count;
+        mean = statistics.mean;
+        stddev = statistics.stddev();
+    }
+
+    /**
+     * Same as {@link #adaptive(int, double, int, long, int, long)}, but runs trials on a single thread with a random
+     * seed
+     */
+    public static PercolationStats adaptive(int N, double precision, int maxTrials, long timeBudgetMillis) {
+        return adaptive(N, precision, maxTrials, timeBudgetMillis, 1, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Runs trials until the 95% confidence interval gets narrower than {@code precision}, but no less than
+     * {@link #MIN_ADAPTIVE_TRIALS} of them. Mean and variance are updated online, so it takes O(1) memory however many
+     * trials are run. Maximum number of trials and the time budget are safety limits, whichever of them is reached
+     * first stops the run (after at least one trial), even if the interval is still wider than requested.
+     * <p>
+     * Trials are seeded the same way the constructors do, but with more than one worker the set of completed trials
+     * depends on timing, so results are reproducible for a single worker only.
+     *
+     * @param N
+     * @param precision target width of the 95% confidence interval
+     * @param maxTrials
+     * @param timeBudgetMillis
+     * @param workers
+     * @param seed
+     * @return
+     */
+    public static PercolationStats adaptive(int N, double precision, int maxTrials, long timeBudgetMillis,
+                                            int workers, long seed) {
+
+        if (N <= 0 || !(precision > 0) || maxTrials <= 0 || timeBudgetMillis < 0 || workers <= 0) {
+            throw new IllegalArgumentException("Bad input arguments!");
+        }
+
+        AdaptiveTrials trials = new AdaptiveTrials(precision, maxTrials, timeBudgetMillis);
+        runTrials(N, seed, workers, trials);
+
+        return new PercolationStats(trials.statistics);
+    }
 
-        if (T <= 0 || N <= 0) {
+    /**
+     * Same as {@link #PercolationStats(int, int, int, long)}, but appends results of completed trials to a new
+     * checkpoint file, so the run may be continued with {@link #resume(Path, int)} if it gets interrupted. Results are
+     * written in batches (once a minute by default, see {@link #CHECKPOINT_INTERVAL_PROPERTY}), so checkpoints take a
+     * negligible share of the time.
+     * <p>
+     * The file starts with a header: magic number, format version, N, T and the seed. Every batch is a record with the
+     * number of trials in it, index and result of every trial and the running count, mean and sum of squared
+     * deviations of all the trials completed so far. Seeds of the trials only depend on the seed and the trial index,
+     * so the header and indexes of the completed trials are all the state of the run.
+     * <p>
+     * The header is written (and forced to the disk) to a temporary file in the same directory, which is then linked
+     * as {@code checkpoint}, so a run interrupted right at the start leaves either no checkpoint or one which may be
+     * resumed, never a file with a cut off header. Unlike a rename, creating the link fails if {@code checkpoint}
+     * already exists, so a checkpoint created by another run in the meantime is never replaced. The file system has to
+     * support hard links.
+     *
+     * @param N
+     * @param T
+     * @param workers
+     * @param seed
+     * @param checkpoint path of the file, which must not exist yet
+     * @return
+     * @throws FileAlreadyExistsException if {@code checkpoint} exists
+     * @throws IOException
+     */
+    public static PercolationStats checkpointed(int N, int T, int workers, long seed, Path checkpoint)
+            throws IOException {
+
+        if (T <= 0 || N <= 0 || workers <= 0) {
             throw new IllegalArgumentException("Bad input arguments!");
         }
 
-        results = new double[T];
+        // only saves creating the temporary file, it's the link which guarantees the checkpoint isn't replaced
+        if (Files.exists(checkpoint)) {
+            throw new FileAlreadyExistsException(checkpoint.toString());
+        }
+
+        Path directory = checkpoint.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, checkpoint.getFileName().toString(), ".tmp");
 
-        for (int i = 0; i < T; i++) {
-            Percolation percolation = new Percolation(N);
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(CHECKPOINT_HEADER_SIZE);
+                header.putInt(CHECKPOINT_MAGIC).putInt(CHECKPOINT_VERSION).putInt(N).putInt(T).putLong(seed).flip();
+                write(channel, header);
+                channel.force(false);
+            }
+
+            Files.createLink(checkpoint, temporary);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        try (FileChannel channel = FileChannel.open(checkpoint, StandardOpenOption.WRITE)) {
+            channel.position(CHECKPOINT_HEADER_SIZE);
+
+            return runCheckpointedTrials(N, seed, workers,
+                    new CheckpointedTrials(T, channel, new RunningStatistics()));
+        }
+    }
 
-            int openedCellsNumber = 0;
+    /**
+     * Continues the run checkpointed to the file by {@link #checkpointed(int, int, int, long, Path)}: trials which
+     * were written to the file aren't run again, the rest are run and appended to the same file. Results are exactly
+     * the same as the ones of the run which wasn't interrupted. A record which was cut off by the interruption is
+     * dropped from the file.
+     *
+     * @param checkpoint
+     * @param workers
+     * @return
+     * @throws IOException
+     */
+    public static PercolationStats resume(Path checkpoint, int workers) throws IOException {
 
-            while (!percolation.percolates()) {
-                int randomCellIndex = getRandomOccupiedCell(percolation, N);
-                percolation.open(randomCellIndex / N + 1, randomCellIndex % N + 1);
-                openedCellsNumber++;
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Bad input arguments!");
+        }
+
+        try (FileChannel channel = FileChannel.open(checkpoint, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the stream isn't closed, as that would close the channel too
+            DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+
+            if (input.readInt() != CHECKPOINT_MAGIC || input.readInt() != CHECKPOINT_VERSION) {
+                throw new IOException("Not a percolation checkpoint: " + checkpoint);
+            }
+
+            int N = input.readInt();
+            int T = input.readInt();
+            long seed = input.readLong();
+
+            if (N <= 0 || T <= 0) {
+                throw new IOException("Corrupted checkpoint header: " + checkpoint);
             }
 
-            results[i] = (double) openedCellsNumber/N/N;
+            CheckpointedTrials trials = new CheckpointedTrials(T, channel, new RunningStatistics());
+            long validSize = CHECKPOINT_HEADER_SIZE;
+
+            for (int recordSize = readRecord(input, trials); recordSize > 0; recordSize = readRecord(input, trials)) {
+                validSize += recordSize;
+            }
+
+            // drops whatever follows the last complete record, so new records are appended right after it
+            channel.truncate(validSize);
+            channel.position(validSize);
+
+            return runCheckpointedTrials(N, seed, workers, trials);
         }
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
 
         if (args.length < 2) {
             throw new IllegalArgumentException("N and T values have to be provided!");
@@ -44,52 +279,479 @@ public class PercolationStats {
 
         int N = Integer.parseInt(args[0]);
         int T = Integer.parseInt(args[1]);
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : Integer.getInteger(WORKERS_PROPERTY, 1);
+        String precision = System.getProperty(PRECISION_PROPERTY);
+
+        PercolationStats stats;
+
+        String checkpoint = System.getProperty(CHECKPOINT_PROPERTY);
 
-        PercolationStats stats = new PercolationStats(N, T);
+        if (checkpoint != null) {
+
+            if (precision != null) {
+                throw new IllegalArgumentException("Checkpoints are supported for a fixed number of trials only!");
+            }
+
+            Path path = Paths.get(checkpoint);
+
+            if (Files.exists(path)) {
+                stats = resume(path, workers);
+            } else {
+                stats = checkpointed(N, T, workers, ThreadLocalRandom.current().nextLong(), path);
+            }
+        } else if (precision == null) {
+            stats = new PercolationStats(N, T, workers);
+        } else {
+            stats = adaptive(N, Double.parseDouble(precision), T, Long.getLong(TIME_BUDGET_PROPERTY, Long.MAX_VALUE),
+                    workers, ThreadLocalRandom.current().nextLong());
+            System.out.println("trials = " + stats.trials());
+        }
 
         System.out.println("mean = " + stats.mean());
         System.out.println("stddev = " + stats.stddev());
         System.out.println("95% confidence interval = " + stats.confidenceLo() + ", " +stats.confidenceHi());
     }
 
+    /**
+     * Returns number of trials which were run
+     */
+    public int trials() {
+        return trials;
+    }
+
     public double mean() {
+        return mean;
+    }
+
+    public double stddev() {
+        return stddev;
+    }
 
-        if (mean == 0) {
-            mean = StdStats.mean(results);
+    public double confidenceLo() {
+        return mean - CONFIDENCE_95 * stddev/Math.sqrt(trials);
+    }
+
+    public double confidenceHi() {
+        return mean + CONFIDENCE_95 * stddev/Math.sqrt(trials);
+    }
+
+    private static RunningStatistics runFixedTrials(int N, int T, int workers, long seed) {
+
+        if (T <= 0 || N <= 0 || workers <= 0) {
+            throw new IllegalArgumentException("Bad input arguments!");
         }
 
-        return mean;
+        FixedTrials trials = new FixedTrials(T);
+        runTrials(N, seed, workers, trials);
+
+        return statistics(trials.results);
     }
 
-    public double stddev() {
+    private static PercolationStats runCheckpointedTrials(int N, long seed, int workers, CheckpointedTrials trials)
+            throws IOException {
 
-        if (stddev == 0) {
-            stddev = StdStats.stddev(results);
+        try {
+            runTrials(N, seed, workers, trials);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
 
-        return stddev;
+        trials.checkpoint();
+
+        return new PercolationStats(statistics(trials.results));
     }
 
-    public double confidenceLo() {
-        return mean() - 1.96 * stddev()/Math.sqrt(results.length);
+    /**
+     * Results are added in the order of trials, not in the order they complete, so the rounding is always the same too
+     */
+    private static RunningStatistics statistics(double[] results) {
+        RunningStatistics statistics = new RunningStatistics();
+
+        for (double result : results) {
+            statistics.add(result);
+        }
+
+        return statistics;
     }
 
-    public double confidenceHi() {
-        return mean() + 1.96 * stddev()/Math.sqrt(results.length);
+    /**
+     * Reads the next checkpoint record and restores its trials, returns size of the record, or 0 if the file is over,
+     * or the record is cut off or inconsistent with the ones before it
+     */
+    private static int readRecord(DataInputStream input, CheckpointedTrials trials) throws IOException {
+
+        try {
+            int count = input.readInt();
+
+            if (count <= 0 || count > MAX_CHECKPOINT_BATCH) {
+                return 0;
+            }
+
+            int[] indexes = new int[count];
+            double[] results = new double[count];
+
+            for (int i = 0; i < count; i++) {
+                indexes[i] = input.readInt();
+                results[i] = input.readDouble();
+            }
+
+            long completed = input.readLong();
+            double mean = input.readDouble();
+            double squaredDeviations = input.readDouble();
+
+            if (!trials.restore(indexes, results, completed, mean, squaredDeviations)) {
+                return 0;
+            }
+
+            return Integer.BYTES + count * CHECKPOINT_ENTRY_SIZE + CHECKPOINT_AGGREGATES_SIZE;
+        } catch (EOFException e) {
+            return 0;
+        }
     }
 
-    private int getRandomOccupiedCell(Percolation percolation, int N) {
-        Random randomGenerator = new Random();
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void runTrials(int N, long seed, int workers, Trials trials) {
 
-        int randomNumber;
-        int i, j;
+        if (workers == 1) {
+            runTrials(N, seed, trials);
+            return;
+        }
 
-        do {
-            randomNumber = randomGenerator.nextInt(N * N);
-            i = randomNumber / N + 1;
-            j = randomNumber % N + 1;
-        } while (percolation.isOpen(i, j));
+        ForkJoinPool pool = new ForkJoinPool(workers);
 
-        return randomNumber;
+        try {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+            for (int i = 0; i < workers; i++) {
+                tasks.add(pool.submit(() -> {
+                    try {
+                        runTrials(N, seed, trials);
+                    } catch (RuntimeException | Error e) {
+                        // the rest of the workers would keep running trials (and writing checkpoints) otherwise
+                        trials.cancel();
+                        throw e;
+                    }
+                }));
+            }
+
+            // every worker is waited for before a failure is rethrown, so none of them touches trials (or the
+            // checkpoint file, which gets closed) after this method returns
+            for (ForkJoinTask<?> task : tasks) {
+                task.quietlyJoin();
+            }
+
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Takes trials one by one from {@code trials} until they are over. Trials are taken dynamically as their
+     * durations vary a lot, and every worker has its own grid and sites array which are reused for all its trials.
+     */
+    private static void runTrials(int N, long seed, Trials trials) {
+        Percolation percolation = new Percolation(N);
+        int[] sites = new int[N * N];
+
+        for (int i = trials.next(); i >= 0; i = trials.next()) {
+            trials.complete(i, runTrial(percolation, sites, N, new SplittableRandom(trialSeed(seed, i))));
+        }
+    }
+
+    /**
+     * Opens sites in the order of a random permutation of {@code 0..N^2 - 1} until the grid percolates. Permutation is
+     * generated lazily by Fisher-Yates shuffle, one step per opened site, so every site costs exactly one random number
+     * and already open sites are never drawn. {@code sites} is reset to identity first, so the result depends only on
+     * {@code random}, not on trials which were run before.
+     */
+    private static double runTrial(Percolation percolation, int[] sites, int N, SplittableRandom random) {
+        percolation.reset();
+
+        for (int i = 0; i < sites.length; i++) {
+            sites[i] = i;
+        }
+
+        int openedCellsNumber = 0;
+
+        while (!percolation.percolates()) {
+            int randomIndex = openedCellsNumber + random.nextInt(sites.length - openedCellsNumber);
+            int randomCellIndex = sites[randomIndex];
+
+            sites[randomIndex] = sites[openedCellsNumber];
+            sites[openedCellsNumber] = randomCellIndex;
+
+            percolation.open(randomCellIndex / N + 1, randomCellIndex % N + 1);
+            openedCellsNumber++;
+        }
+
+        return (double) openedCellsNumber/N/N;
+    }
+
+    /**
+     * Returns seed of the trial, which is the {@code trial + 1}-th value of {@code new SplittableRandom(seed)}. It's
+     * computed directly, so seeds of the trials don't have to be generated (and stored) in advance.
+     */
+    private static long trialSeed(long seed, int trial) {
+        // SplittableRandom adds golden gamma to its state and mixes the result with Stafford's variant 13 of the
+        // MurmurHash3 finalizer for every long it returns
+        long z = seed + (trial + 1L) * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Hands out trials to the workers and receives their results, has to be thread safe
+     */
+    private interface Trials {
+
+        /**
+         * Returns index of the next trial to run, or -1 if no more trials are needed
+         */
+        int next();
+
+        void complete(int trial, double threshold);
+
+        /**
+         * Stops handing out trials after a worker fails, results of trials which are still running are ignored
+         */
+        void cancel();
+    }
+
+    private static class FixedTrials implements Trials {
+
+        final double[] results;
+
+        /**
+         * Trials which are done before the run starts (restored from a checkpoint) and are skipped
+         */
+        final boolean[] completed;
+
+        private final AtomicInteger nextTrial = new AtomicInteger();
+
+        volatile boolean cancelled;
+
+        FixedTrials(int T) {
+            results = new double[T];
+            completed = new boolean[T];
+        }
+
+        @Override
+        public int next() {
+            if (cancelled) {
+                return -1;
+            }
+
+            int trial = nextTrial.getAndIncrement();
+
+            while (trial < results.length && completed[trial]) {
+                trial = nextTrial.getAndIncrement();
+            }
+
+            return trial < results.length ? trial : -1;
+        }
+
+        @Override
+        public void complete(int trial, double threshold) {
+            results[trial] = threshold;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * Appends results to the checkpoint file in batches, every batch is written (and forced to the disk) once the
+     * checkpoint interval is over or the batch gets full
+     */
+    private static class CheckpointedTrials extends FixedTrials {
+
+        private final FileChannel channel;
+
+        /**
+         * Running aggregates of the completed trials, in the order they complete
+         */
+        private final RunningStatistics statistics;
+
+        private final long interval = TimeUnit.MILLISECONDS.toNanos(
+                Long.getLong(CHECKPOINT_INTERVAL_PROPERTY, DEFAULT_CHECKPOINT_INTERVAL_MILLIS));
+
+        /**
+         * Record which is being filled, starts with a slot for the number of trials
+         */
+        private final ByteBuffer batch = ByteBuffer.allocate(
+                Integer.BYTES + MAX_CHECKPOINT_BATCH * CHECKPOINT_ENTRY_SIZE + CHECKPOINT_AGGREGATES_SIZE);
+
+        private int batchSize;
+
+        private long lastCheckpoint = System.nanoTime();
+
+        CheckpointedTrials(int T, FileChannel channel, RunningStatistics statistics) {
+            super(T);
+            this.channel = channel;
+            this.statistics = statistics;
+            batch.position(Integer.BYTES);
+        }
+
+        @Override
+        public synchronized void complete(int trial, double threshold) {
+
+            // the batch may be half written if a checkpoint failed
+            if (cancelled) {
+                return;
+            }
+
+            super.complete(trial, threshold);
+            statistics.add(threshold);
+
+            batch.putInt(trial).putDouble(threshold);
+            batchSize++;
+
+            if (batchSize == MAX_CHECKPOINT_BATCH || System.nanoTime() - lastCheckpoint >= interval) {
+                try {
+                    checkpoint();
+                } catch (IOException e) {
+                    cancelled = true;
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        /**
+         * Writes the trials completed since the last checkpoint, if there are any
+         */
+        synchronized void checkpoint() throws IOException {
+            lastCheckpoint = System.nanoTime();
+
+            if (batchSize == 0) {
+                return;
+            }
+
+            batch.putLong(statistics.count).putDouble(statistics.mean).putDouble(statistics.squaredDeviations);
+            batch.putInt(0, batchSize);
+            batch.flip();
+
+            write(channel, batch);
+            channel.force(false);
+
+            batch.clear();
+            batch.position(Integer.BYTES);
+            batchSize = 0;
+        }
+
+        /**
+         * Marks trials of a checkpoint record as completed, returns false (and changes nothing) if the record doesn't
+         * match the ones restored before it
+         */
+        boolean restore(int[] indexes, double[] values, long count, double mean, double squaredDeviations) {
+
+            if (count != statistics.count + indexes.length) {
+                return false;
+            }
+
+            for (int i = 0; i < indexes.length; i++) {
+
+                // trials which are out of range or completed already (repeated ones included) are rolled back
+                if (indexes[i] < 0 || indexes[i] >= completed.length || completed[indexes[i]]) {
+                    for (int k = 0; k < i; k++) {
+                        completed[indexes[k]] = false;
+                    }
+
+                    return false;
+                }
+
+                completed[indexes[i]] = true;
+                results[indexes[i]] = values[i];
+            }
+
+            statistics.count = count;
+            statistics.mean = mean;
+            statistics.squaredDeviations = squaredDeviations;
+
+            return true;
+        }
+    }
+
+    private static class AdaptiveTrials implements Trials {
+
+        private final RunningStatistics statistics = new RunningStatistics();
+
+        private final double precision;
+
+        private final int maxTrials;
+
+        private final long startTime = System.nanoTime();
+
+        private final long timeBudget;
+
+        private int nextTrial;
+
+        private boolean stopped;
+
+        AdaptiveTrials(double precision, int maxTrials, long timeBudgetMillis) {
+            this.precision = precision;
+            this.maxTrials = maxTrials;
+            this.timeBudget = TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        }
+
+        @Override
+        public synchronized int next() {
+            return stopped || nextTrial == maxTrials ? -1 : nextTrial++;
+        }
+
+        @Override
+        public synchronized void complete(int trial, double threshold) {
+            statistics.add(threshold);
+
+            double intervalWidth = 2 * CONFIDENCE_95 * statistics.stddev() / Math.sqrt(statistics.count);
+
+            stopped |= statistics.count >= MIN_ADAPTIVE_TRIALS && intervalWidth < precision
+                    || System.nanoTime() - startTime >= timeBudget;
+        }
+
+        @Override
+        public synchronized void cancel() {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Welford's online algorithm for mean and variance, numerically stable unlike the sum of squares formula
+     */
+    private static class RunningStatistics {
+
+        private long count;
+
+        private double mean;
+
+        /**
+         * Sum of squared differences from the mean
+         */
+        private double squaredDeviations;
+
+        void add(double value) {
+            count++;
+
+            double delta = value - mean;
+            mean += delta / count;
+            squaredDeviations += delta * (value - mean);
+        }
+
+        /**
+         * Returns sample standard deviation, which is NaN for a single value the same way {@code StdStats.stddev()} is
+         */
+        double stddev() {
+            return Math.sqrt(squaredDeviations / (count - 1));
+        }
     }
 }
@@ -0,0 +1,135 @@
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+public class PercolationStatsTest {
+
+    private static final int N = 20;
+
+    private static final int T = 200;
+
+    private static final long SEED = 42;
+
+    /**
+     * Magic, version, N, T and the seed
+     */
+    private static final int HEADER_SIZE = 24;
+
+    @Test
+    public void testResultsDependOnSeedOnly() {
+        PercolationStats expected = new PercolationStats(N, T, 1, SEED);
+
+        for (int workers : new int[]{2, 4, 7}) {
+            assertSameResults(new PercolationStats(N, T, workers, SEED), expected);
+        }
+    }
+
+    @Test
+    public void testCheckpointedRunWorksAsExpected() throws IOException {
+        Path directory = Files.createTempDirectory("checkpoint");
+        Path checkpoint = directory.resolve("run");
+
+        try {
+            assertSameResults(PercolationStats.checkpointed(N, T, 4, SEED, checkpoint),
+                    new PercolationStats(N, T, 1, SEED));
+
+            // only the checkpoint itself is left, without temporary files
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(files.toArray(), new Path[]{checkpoint});
+            }
+        } finally {
+            Files.deleteIfExists(checkpoint);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testCheckpointedRunDoesNotReplaceExistingCheckpoint() throws IOException {
+        Path directory = Files.createTempDirectory("checkpoint");
+        Path checkpoint = directory.resolve("run");
+        byte[] content = {1, 2, 3};
+
+        try {
+            Files.write(checkpoint, content);
+
+            try {
+                PercolationStats.checkpointed(N, T, 1, SEED, checkpoint);
+                fail("Existing checkpoint has to be kept");
+            } catch (FileAlreadyExistsException e) {
+                assertEquals(Files.readAllBytes(checkpoint), content);
+            }
+
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(files.toArray(), new Path[]{checkpoint});
+            }
+        } finally {
+            Files.deleteIfExists(checkpoint);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testResumedRunGivesTheSameResults() throws IOException {
+        PercolationStats expected = new PercolationStats(N, T, 1, SEED);
+        Path directory = Files.createTempDirectory("checkpoint");
+        Path checkpoint = directory.resolve("run");
+        Path interrupted = directory.resolve("interrupted");
+        String interval = System.getProperty("percolation.checkpointInterval");
+
+        try {
+            // every trial is written as a separate record
+            System.setProperty("percolation.checkpointInterval", "0");
+            PercolationStats.checkpointed(N, T, 4, SEED, checkpoint);
+
+            byte[] content = Files.readAllBytes(checkpoint);
+
+            // cut off at every point from right after the header to the end, records included in the middle
+            for (int size = HEADER_SIZE; size <= content.length; size += 7) {
+                Files.write(interrupted, Arrays.copyOf(content, size));
+
+                assertSameResults(PercolationStats.resume(interrupted, size % 2 == 0 ? 1 : 3), expected);
+
+                Files.delete(interrupted);
+            }
+        } finally {
+            if (interval == null) {
+                System.clearProperty("percolation.checkpointInterval");
+            } else {
+                System.setProperty("percolation.checkpointInterval", interval);
+            }
+
+            Files.deleteIfExists(checkpoint);
+            Files.deleteIfExists(interrupted);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testNewmanZiffPercolationWorksAsExpectedForSingleSite() {
+        NewmanZiffPercolation experiment = new NewmanZiffPercolation(1, 10, SEED);
+
+        assertEquals(experiment.mean(), 1, 0);
+
+        for (double p = 0; p <= 1; p += 0.125) {
+            assertEquals(experiment.spanningProbability(p), p, 1e-12);
+            assertEquals(experiment.largestClusterFraction(p), p, 1e-12);
+        }
+    }
+
+    private static void assertSameResults(PercolationStats actual, PercolationStats expected) {
+        assertEquals(actual.trials(), expected.trials());
+        assertEquals(Double.doubleToLongBits(actual.mean()), Double.doubleToLongBits(expected.mean()));
+        assertEquals(Double.doubleToLongBits(actual.stddev()), Double.doubleToLongBits(expected.stddev()));
+    }
+}
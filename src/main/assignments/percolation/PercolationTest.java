@@ -0,0 +1,445 @@
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Checks every implementation against a breadth-first search over the same grid
+ *
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+public class PercolationTest {
+
+    private static final int[] GRID_SIZES = {1, 2, 3, 7, 63, 64, 65, 130};
+
+    private static final double[] PROBABILITIES = {0.3, 0.5, 0.59, 0.7};
+
+    @Test
+    public void testIsFullHasNoBackwash() {
+        Percolation percolation = new Percolation(3);
+        ConcurrentPercolation concurrentPercolation = new ConcurrentPercolation(3);
+
+        for (int[] site : new int[][]{{1, 1}, {2, 1}, {3, 1}, {3, 3}}) {
+            percolation.open(site[0], site[1]);
+            concurrentPercolation.open(site[0], site[1]);
+        }
+
+        assertTrue(percolation.percolates());
+        assertTrue(percolation.isFull(3, 1));
+        assertFalse(percolation.isFull(3, 3));
+
+        assertTrue(concurrentPercolation.percolates());
+        assertTrue(concurrentPercolation.isFull(3, 1));
+        assertFalse(concurrentPercolation.isFull(3, 3));
+    }
+
+    @Test
+    public void testSingleSiteGridPercolatesOnceItIsOpen() {
+        Percolation percolation = new Percolation(1);
+        ConcurrentPercolation concurrentPercolation = new ConcurrentPercolation(1);
+
+        assertFalse(percolation.percolates());
+        assertFalse(concurrentPercolation.percolates());
+
+        percolation.open(1, 1);
+        concurrentPercolation.open(1, 1);
+
+        assertTrue(percolation.percolates());
+        assertTrue(percolation.isFull(1, 1));
+        assertTrue(concurrentPercolation.percolates());
+        assertTrue(concurrentPercolation.isFull(1, 1));
+    }
+
+    @Test
+    public void testPercolationWorksAsExpected() {
+        SplittableRandom random = new SplittableRandom(1);
+
+        for (int N : GRID_SIZES) {
+            Percolation percolation = new Percolation(N);
+            boolean[][] open = new boolean[N][N];
+            int[] sites = shuffledSites(N, random);
+
+            // the grid is compared with the reference N + 1 times on the way from empty to fully open
+            for (int k = 0; k < sites.length; k++) {
+                percolation.open(sites[k] / N + 1, sites[k] % N + 1);
+                open[sites[k] / N][sites[k] % N] = true;
+
+                if (k % N == N - 1) {
+                    assertMatches(percolation, open);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOpenAllAndOpenRowWorkAsExpected() {
+        SplittableRandom random = new SplittableRandom(2);
+
+        for (int N : GRID_SIZES) {
+            int wordsPerRow = (N + Long.SIZE - 1) / Long.SIZE;
+
+            for (double p : PROBABILITIES) {
+                Percolation batches = new Percolation(N);
+                Percolation rows = new Percolation(N);
+                boolean[][] open = new boolean[N][N];
+                int[] sites = shuffledSites(N, random);
+                int opened = (int) (p * N * N);
+
+                // batches of growing sizes, so both sparse and dense ones are opened, duplicates included
+                for (int from = 0, size = 1; from < opened; from += size, size *= 2) {
+                    int[] batch = Arrays.copyOfRange(sites, from, Math.min(opened, from + size));
+                    int[] withDuplicates = Arrays.copyOf(batch, 2 * batch.length);
+                    System.arraycopy(batch, 0, withDuplicates, batch.length, batch.length);
+
+                    for (int site : batch) {
+                        open[site / N][site % N] = true;
+                    }
+
+                    assertEquals(batches.openAll(withDuplicates), percolates(open));
+                }
+
+                assertMatches(batches, open);
+
+                for (int i = N; i >= 1; i--) {
+                    long[] mask = new long[wordsPerRow];
+
+                    for (int j = 0; j < N; j++) {
+                        if (open[i - 1][j]) {
+                            mask[j >>> 6] |= 1L << j;
+                        }
+                    }
+
+                    rows.openRow(i, mask);
+                }
+
+                assertMatches(rows, open);
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentPercolationWorksAsExpected() throws Exception {
+        SplittableRandom random = new SplittableRandom(3);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            for (int N : GRID_SIZES) {
+                for (double p : PROBABILITIES) {
+                    ConcurrentPercolation percolation = new ConcurrentPercolation(N);
+                    boolean[][] open = new boolean[N][N];
+                    int[] sites = shuffledSites(N, random);
+                    int opened = (int) (p * N * N);
+                    List<Future<?>> futures = new ArrayList<>();
+
+                    for (int k = 0; k < opened; k++) {
+                        open[sites[k] / N][sites[k] % N] = true;
+                    }
+
+                    for (int w = 0; w < 4; w++) {
+                        int worker = w;
+
+                        futures.add(executor.submit(() -> {
+                            // answers while other sites are being opened may show them half joined, so only
+                            // what the open which has returned guarantees is checked
+                            for (int k = worker; k < opened; k += 4) {
+                                int i = sites[k] / N + 1;
+                                int j = sites[k] % N + 1;
+
+                                percolation.open(i, j);
+                                percolation.percolates();
+
+                                assertTrue(percolation.isOpen(i, j));
+
+                                if (i == 1) {
+                                    assertTrue(percolation.isFull(i, j));
+                                }
+                            }
+                        }));
+                    }
+
+                    for (Future<?> future : futures) {
+                        future.get();
+                    }
+
+                    // all the opens have returned, so the answers have to be the ones of the whole grid
+                    boolean[][] full = fullSites(open, N);
+
+                    assertEquals(percolation.percolates(), percolates(open));
+
+                    for (int i = 1; i <= N; i++) {
+                        for (int j = 1; j <= N; j++) {
+                            assertEquals(percolation.isOpen(i, j), open[i - 1][j - 1]);
+                            assertEquals(percolation.isFull(i, j), full[i - 1][j - 1], "(" + i + ", " + j + ")");
+                        }
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testStreamingPercolationWorksAsExpected() throws IOException {
+        SplittableRandom random = new SplittableRandom(4);
+        Path file = Files.createTempFile("grid", ".txt");
+
+        try {
+            for (int N : GRID_SIZES) {
+                StreamingPercolation percolation = new StreamingPercolation(N);
+
+                for (double p : PROBABILITIES) {
+                    // grids are rectangular, so they have a different number of rows
+                    int rowsNumber = 1 + random.nextInt(2 * N);
+                    boolean[][] open = randomGrid(rowsNumber, N, p, random);
+                    StringBuilder text = new StringBuilder();
+
+                    for (boolean[] row : open) {
+                        for (boolean site : row) {
+                            text.append(site ? '1' : '0');
+                        }
+
+                        text.append('\n');
+                    }
+
+                    Files.write(file, text.toString().getBytes(StandardCharsets.US_ASCII));
+
+                    // every row is reported with sites connected to the top through the rows read so far
+                    StreamingPercolation.FullSitesListener listener = (i, full) -> assertEquals(full,
+                            fullSites(Arrays.copyOf(open, (int) i), N)[(int) i - 1], "row " + i);
+
+                    assertEquals(percolation.percolates(Arrays.asList(open).iterator(), listener), percolates(open));
+                    assertEquals(percolation.percolates(file, listener), percolates(open));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testHoshenKopelmanWorksAsExpected() {
+        SplittableRandom random = new SplittableRandom(5);
+
+        for (int N : GRID_SIZES) {
+            int wordsPerRow = (N + Long.SIZE - 1) / Long.SIZE;
+
+            for (double p : PROBABILITIES) {
+                long[] grid = HoshenKopelman.randomGrid(N, p, random);
+                HoshenKopelman labeling = new HoshenKopelman(N, grid);
+                boolean[][] open = new boolean[N][N];
+
+                for (int i = 0; i < N; i++) {
+                    for (int j = 0; j < N; j++) {
+                        open[i][j] = (grid[i * wordsPerRow + (j >>> 6)] & (1L << j)) != 0;
+                    }
+                }
+
+                int[][] components = components(open, N);
+                int[] componentClusters = new int[N * N + 1];
+                int[] sizes = new int[labeling.clustersNumber() + 1];
+                boolean[] spanning = new boolean[labeling.clustersNumber() + 1];
+                boolean[][] full = fullSites(open, N);
+
+                for (int i = 0; i < N; i++) {
+                    for (int j = 0; j < N; j++) {
+                        int cluster = labeling.cluster(i + 1, j + 1);
+
+                        assertEquals(cluster != 0, open[i][j]);
+
+                        if (cluster == 0) {
+                            continue;
+                        }
+
+                        // clusters and components have to be the same partition of the open sites
+                        if (componentClusters[components[i][j]] == 0) {
+                            componentClusters[components[i][j]] = cluster;
+                        }
+
+                        assertEquals(cluster, componentClusters[components[i][j]]);
+                        sizes[cluster]++;
+                        spanning[cluster] |= i == N - 1 && full[i][j];
+                    }
+                }
+
+                int largest = 0;
+                int spanningNumber = 0;
+
+                for (int cluster = 1; cluster <= labeling.clustersNumber(); cluster++) {
+                    assertEquals(labeling.clusterSize(cluster), sizes[cluster]);
+                    largest = Math.max(largest, sizes[cluster]);
+                    spanningNumber += spanning[cluster] ? 1 : 0;
+                }
+
+                assertEquals(labeling.clustersNumber(), distinctComponents(componentClusters));
+                assertEquals(labeling.largestClusterSize(), largest);
+                assertEquals(labeling.spanningClusters().length, spanningNumber);
+                assertEquals(labeling.percolates(), percolates(open));
+
+                for (int cluster : labeling.spanningClusters()) {
+                    assertTrue(spanning[cluster]);
+                }
+            }
+        }
+    }
+
+    private static void assertMatches(Percolation percolation, boolean[][] open) {
+        int N = open.length;
+        boolean[][] full = fullSites(open, N);
+
+        assertEquals(percolation.percolates(), percolates(open));
+
+        for (int i = 1; i <= N; i++) {
+            for (int j = 1; j <= N; j++) {
+                assertEquals(percolation.isOpen(i, j), open[i - 1][j - 1]);
+                assertEquals(percolation.isFull(i, j), full[i - 1][j - 1], "(" + i + ", " + j + ")");
+            }
+        }
+    }
+
+    private static boolean percolates(boolean[][] open) {
+
+        if (open.length == 0) {
+            return false;
+        }
+
+        boolean[] bottom = fullSites(open, open[0].length)[open.length - 1];
+
+        for (boolean full : bottom) {
+            if (full) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Reference implementation: breadth-first search from the open sites of the top row
+     */
+    private static boolean[][] fullSites(boolean[][] open, int columns) {
+        int rows = open.length;
+        boolean[][] full = new boolean[rows][columns];
+        int[] queue = new int[rows * columns];
+        int head = 0;
+        int tail = 0;
+
+        for (int j = 0; j < columns && rows > 0; j++) {
+            if (open[0][j]) {
+                full[0][j] = true;
+                queue[tail++] = j;
+            }
+        }
+
+        while (head < tail) {
+            int i = queue[head] / columns;
+            int j = queue[head++] % columns;
+
+            for (int[] neighbour : new int[][]{{i - 1, j}, {i, j + 1}, {i + 1, j}, {i, j - 1}}) {
+                int ni = neighbour[0];
+                int nj = neighbour[1];
+
+                if (ni >= 0 && ni < rows && nj >= 0 && nj < columns && open[ni][nj] && !full[ni][nj]) {
+                    full[ni][nj] = true;
+                    queue[tail++] = ni * columns + nj;
+                }
+            }
+        }
+
+        return full;
+    }
+
+    /**
+     * Numbers connected components of open sites starting from 1 with breadth-first search, blocked sites get 0
+     */
+    private static int[][] components(boolean[][] open, int N) {
+        int[][] components = new int[N][N];
+        int[] queue = new int[N * N];
+        int componentsNumber = 0;
+
+        for (int site = 0; site < N * N; site++) {
+
+            if (!open[site / N][site % N] || components[site / N][site % N] != 0) {
+                continue;
+            }
+
+            int head = 0;
+            int tail = 0;
+
+            components[site / N][site % N] = ++componentsNumber;
+            queue[tail++] = site;
+
+            while (head < tail) {
+                int i = queue[head] / N;
+                int j = queue[head++] % N;
+
+                for (int[] neighbour : new int[][]{{i - 1, j}, {i, j + 1}, {i + 1, j}, {i, j - 1}}) {
+                    int ni = neighbour[0];
+                    int nj = neighbour[1];
+
+                    if (ni >= 0 && ni < N && nj >= 0 && nj < N && open[ni][nj] && components[ni][nj] == 0) {
+                        components[ni][nj] = componentsNumber;
+                        queue[tail++] = ni * N + nj;
+                    }
+                }
+            }
+        }
+
+        return components;
+    }
+
+    /**
+     * Returns number of distinct non-zero values, which also have to be distinct from each other
+     */
+    private static int distinctComponents(int[] componentClusters) {
+        boolean[] seen = new boolean[componentClusters.length + 1];
+        int distinct = 0;
+
+        for (int cluster : componentClusters) {
+            if (cluster != 0) {
+                assertFalse(seen[cluster], "cluster " + cluster + " spans several components");
+                seen[cluster] = true;
+                distinct++;
+            }
+        }
+
+        return distinct;
+    }
+
+    private static int[] shuffledSites(int N, SplittableRandom random) {
+        int[] sites = new int[N * N];
+
+        for (int i = 0; i < sites.length; i++) {
+            int k = random.nextInt(i + 1);
+            sites[i] = sites[k];
+            sites[k] = i;
+        }
+
+        return sites;
+    }
+
+    private static boolean[][] randomGrid(int rows, int columns, double p, SplittableRandom random) {
+        boolean[][] open = new boolean[rows][columns];
+
+        for (boolean[] row : open) {
+            for (int j = 0; j < columns; j++) {
+                row[j] = random.nextDouble() < p;
+            }
+        }
+
+        return open;
+    }
+}
@@ -0,0 +1,253 @@
+import com.vojtoshik.coursera.algorithms.unionfind.UnionFind;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Checks whether a grid of N columns and any number of rows percolates, reading it row by row, so it takes O(N) memory
+ * however many rows there are. Only labels of the previous row are kept: two sites of the previous row have the same
+ * label if they are connected through the rows above, and the label tells whether they are connected to the top. For
+ * every new row a union-find over the previous and the current rows (2N elements) joins them and gives labels of the
+ * current row.
+ * <p>
+ * Any path from the top to the bottom enters every row for the first time through a site which is connected to the
+ * top through the rows above only, so reading stops as soon as a row has no such site.
+ * <p>
+ * Instances aren't thread safe, but may be reused for any number of grids with the same number of columns.
+ *
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+public class StreamingPercolation {
+
+    /**
+     * Receives full sites of every row as soon as it's read
+     */
+    public interface FullSitesListener {
+
+        /**
+         * Called for every row, {@code full[j - 1]} tells whether site (i, j) is connected to the top through rows
+         * {@code 1..i}. Paths which go through the rows below aren't known yet, so sites reported as not full may turn
+         * out to be full later. The array is reused for the next rows, so it must not be kept.
+         *
+         * @param i number of the row, starting from 1
+         * @param full
+         */
+        void onRow(long i, boolean[] full);
+    }
+
+    /**
+     * Files are mapped by chunks of this size, as a single mapping can't be larger than 2 GB
+     */
+    private static final long MAPPED_CHUNK_SIZE = 1L << 30;
+
+    private final int gridSize;
+
+    /**
+     * Elements {@code 0..N - 1} are sites of the previous row and {@code N..2N - 1} are sites of the current one
+     */
+    private final UnionFind unionFind;
+
+    /**
+     * Column of the leftmost site of the previous row connected to the site, or -1 if it isn't open
+     */
+    private int[] labels;
+
+    private boolean[] full;
+
+    private int[] nextLabels;
+
+    private boolean[] nextFull;
+
+    /**
+     * Leftmost column of the current row in the component of the union-find root, or -1 if there is none yet
+     */
+    private final int[] rootColumns;
+
+    private final boolean[] fullRoots;
+
+    private long rowsNumber;
+
+    public StreamingPercolation(int N) {
+
+        if (N <= 0) {
+            throw new IllegalArgumentException("Bad value for grid size provided!");
+        }
+
+        if (2L * N > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid is too large!");
+        }
+
+        gridSize = N;
+        unionFind = new UnionFind(2 * N);
+        labels = new int[N];
+        full = new boolean[N];
+        nextLabels = new int[N];
+        nextFull = new boolean[N];
+        rootColumns = new int[2 * N];
+        fullRoots = new boolean[2 * N];
+
+        Arrays.fill(rootColumns, -1);
+    }
+
+    public boolean percolates(Iterator<boolean[]> rows) {
+        return percolates(rows, null);
+    }
+
+    /**
+     * Returns whether the grid with the given rows percolates. Grid without rows doesn't percolate.
+     *
+     * @param rows open sites of every row, each of them has to have exactly N elements
+     * @param listener receives full sites of every row which is read, may be {@code null}
+     * @return
+     */
+    public boolean percolates(Iterator<boolean[]> rows, FullSitesListener listener) {
+        rowsNumber = 0;
+
+        while (rows.hasNext()) {
+            if (!addRow(rows.next(), listener)) {
+                return false;
+            }
+        }
+
+        return rowsNumber > 0;
+    }
+
+    public boolean percolates(Path file) throws IOException {
+        return percolates(file, null);
+    }
+
+    /**
+     * Same as {@link #percolates(Iterator, FullSitesListener)}, but reads the grid from the file, which is memory
+     * mapped instead of being read into the heap. Every site takes one byte, which is either {@code '1'} or {@code 1}
+     * for open sites, any other value means the site is blocked. Line breaks are skipped, so the file may (but doesn't
+     * have to) contain one row per line.
+     *
+     * @param file
+     * @param listener receives full sites of every row which is read, may be {@code null}
+     * @return
+     * @throws IOException
+     */
+    public boolean percolates(Path file, FullSitesListener listener) throws IOException {
+        rowsNumber = 0;
+
+        boolean[] row = new boolean[gridSize];
+        int column = 0;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            for (long position = 0; position < size; position += MAPPED_CHUNK_SIZE) {
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAPPED_CHUNK_SIZE, size - position));
+
+                while (chunk.hasRemaining()) {
+                    byte site = chunk.get();
+
+                    if (site == '\n' || site == '\r') {
+                        continue;
+                    }
+
+                    row[column++] = site == '1' || site == 1;
+
+                    if (column == gridSize) {
+                        column = 0;
+
+                        if (!addRow(row, listener)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (column != 0) {
+            throw new IllegalArgumentException("File ends in the middle of a row!");
+        }
+
+        return rowsNumber > 0;
+    }
+
+    /**
+     * Joins the row to the ones read before, returns whether it has any site connected to the top
+     */
+    private boolean addRow(boolean[] row, FullSitesListener listener) {
+
+        if (row.length != gridSize) {
+            throw new IllegalArgumentException("Row has to have " + gridSize + " sites, not " + row.length);
+        }
+
+        unionFind.reset();
+
+        for (int j = 0; j < gridSize; j++) {
+
+            if (rowsNumber > 0 && labels[j] >= 0 && labels[j] != j) {
+                unionFind.union(j, labels[j]);
+            }
+
+            if (!row[j]) {
+                continue;
+            }
+
+            if (j > 0 && row[j - 1]) {
+                unionFind.union(gridSize + j, gridSize + j - 1);
+            }
+
+            if (rowsNumber > 0 && labels[j] >= 0) {
+                unionFind.union(gridSize + j, j);
+            }
+        }
+
+        if (rowsNumber > 0) {
+            for (int j = 0; j < gridSize; j++) {
+                if (full[j]) {
+                    fullRoots[unionFind.find(j)] = true;
+                }
+            }
+        }
+
+        boolean hasFullSites = false;
+
+        for (int j = 0; j < gridSize; j++) {
+
+            if (!row[j]) {
+                nextLabels[j] = -1;
+                nextFull[j] = false;
+                continue;
+            }
+
+            int root = unionFind.find(gridSize + j);
+
+            if (rootColumns[root] < 0) {
+                rootColumns[root] = j;
+            }
+
+            nextLabels[j] = rootColumns[root];
+            nextFull[j] = rowsNumber == 0 || fullRoots[root];
+            hasFullSites |= nextFull[j];
+        }
+
+        Arrays.fill(rootColumns, -1);
+        Arrays.fill(fullRoots, false);
+
+        int[] tmpLabels = labels;
+        labels = nextLabels;
+        nextLabels = tmpLabels;
+
+        boolean[] tmpFull = full;
+        full = nextFull;
+        nextFull = tmpFull;
+
+        rowsNumber++;
+
+        if (listener != null) {
+            listener.onRow(rowsNumber, full);
+        }
+
+        return hasFullSites;
+    }
+}
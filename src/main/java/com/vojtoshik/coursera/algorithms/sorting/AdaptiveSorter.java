@@ -0,0 +1,140 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+import java.util.Comparator;
+import java.util.function.ToLongFunction;
+
+/**
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ * @see Sorters#auto(Comparator)
+ */
+class AdaptiveSorter<T> implements Sorter<T> {
+
+    enum Algorithm {
+        QUICK_SORT,
+        THREE_WAY_QUICK_SORT,
+        MERGE_SORT,
+        RADIX_SORT
+    }
+
+    /**
+     * Number of elements (and of adjacent pairs) looked at to describe the array
+     */
+    static final int SAMPLE_SIZE = 64;
+
+    /**
+     * Arrays shorter than this are sorted with merge sort right away, as sampling them costs about as much as sorting
+     */
+    private static final int SMALL_ARRAY_SIZE = 2 * SAMPLE_SIZE;
+
+    /**
+     * Radix sort has to pass over its counters for every digit, so it doesn't pay off for short arrays
+     */
+    private static final int RADIX_SORT_THRESHOLD = 1 << 12;
+
+    /**
+     * If that share of sampled adjacent pairs is in order (or all in reverse order), array is considered presorted
+     */
+    private static final double PRESORTED_SHARE = 0.9;
+
+    /**
+     * If the share of distinct elements in the sample is lower than that, array is considered to have a lot of
+     * duplicates. Any duplicate in a sample of distinct keys is unlikely, so the threshold is high.
+     */
+    private static final double DISTINCT_SHARE = 0.9;
+
+    private final Comparator<T> comparator;
+
+    private final ToLongFunction<T> keyExtractor;
+
+    private final boolean cacheDecision;
+
+    private volatile Algorithm decision;
+
+    AdaptiveSorter(Comparator<T> comparator, ToLongFunction<T> keyExtractor, boolean cacheDecision) {
+        this.comparator = comparator;
+        this.keyExtractor = keyExtractor;
+        this.cacheDecision = cacheDecision;
+    }
+
+    @Override
+    public void sort(T[] array) {
+        Algorithm algorithm = decision;
+
+        if (algorithm == null) {
+            algorithm = choose(array);
+
+            if (cacheDecision) {
+                decision = algorithm;
+            }
+        }
+
+        switch (algorithm) {
+            case MERGE_SORT:
+                MergeSort.sort(array, comparator);
+                break;
+            case RADIX_SORT:
+                RadixSort.sortByLongKey(array, keyExtractor);
+                break;
+            case THREE_WAY_QUICK_SORT:
+                QuickSort.sortWith3WayPartitioningFast(array, comparator);
+                break;
+            default:
+                QuickSort.introSort(array, comparator);
+        }
+    }
+
+    /**
+     * Looks at {@link #SAMPLE_SIZE} evenly spaced adjacent pairs to estimate presortedness and at the same number of
+     * evenly spaced elements to estimate the share of distinct ones, which takes constant time
+     */
+    Algorithm choose(T[] array) {
+
+        if (array.length < SMALL_ARRAY_SIZE) {
+            return Algorithm.MERGE_SORT;
+        }
+
+        int step = (array.length - 1) / SAMPLE_SIZE;
+        int ascending = 0;
+        int descending = 0;
+
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            int index = i * step;
+            int cmp = comparator.compare(array[index], array[index + 1]);
+
+            if (cmp <= 0) {
+                ascending++;
+            }
+
+            if (cmp >= 0) {
+                descending++;
+            }
+        }
+
+        if (ascending >= PRESORTED_SHARE * SAMPLE_SIZE || descending >= PRESORTED_SHARE * SAMPLE_SIZE) {
+            return Algorithm.MERGE_SORT;
+        }
+
+        if (keyExtractor != null && array.length >= RADIX_SORT_THRESHOLD) {
+            return Algorithm.RADIX_SORT;
+        }
+
+        @SuppressWarnings("unchecked")
+        T[] sample = (T[]) new Object[SAMPLE_SIZE];
+
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            sample[i] = array[i * step + step / 2];
+        }
+
+        InsertionSort.sort(sample, comparator);
+
+        int distinct = 1;
+
+        for (int i = 1; i < SAMPLE_SIZE; i++) {
+            if (comparator.compare(sample[i - 1], sample[i]) != 0) {
+                distinct++;
+            }
+        }
+
+        return distinct < DISTINCT_SHARE * SAMPLE_SIZE ? Algorithm.THREE_WAY_QUICK_SORT : Algorithm.QUICK_SORT;
+    }
+}
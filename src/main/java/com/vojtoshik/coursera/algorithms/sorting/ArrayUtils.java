@@ -1,6 +1,10 @@
 package com.vojtoshik.coursera.algorithms.sorting;
 
+import java.util.Arrays;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
 
 /**
  * @author Anton Voitovych <vojtoshik@gmail.com>
@@ -8,18 +12,259 @@ import java.util.Random;
 public class ArrayUtils {
 
     /**
-     * Shuffles array of elements and does exactly N - 1 exchanges, where N is the size of arrayToShuffle
+     * Arrays shorter than this are shuffled sequentially by {@link #parallelShuffle(Object[], SplittableRandom)}
+     */
+    private static final int PARALLEL_SHUFFLE_THRESHOLD = 1 << 16;
+
+    /**
+     * Upper bound of the number of buckets (and blocks they are counted by)
+     * {@link #parallelShuffle(Object[], SplittableRandom)} splits array into
+     */
+    private static final int MAX_SHUFFLE_BUCKETS = 256;
+
+    /**
+     * Shuffles array of elements and does exactly N - 1 exchanges, where N is the size of arrayToShuffle. Uses
+     * {@link ThreadLocalRandom}, so concurrent calls don't contend for a shared generator.
      *
      * @param arrayToShuffle
      */
     public static void shuffle(Object[] arrayToShuffle) {
-        Random random = new Random();
+        shuffle(arrayToShuffle, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Same as {@link #shuffle(Object[])}, but takes random numbers from the given generator, so a seeded one gives
+     * reproducible results
+     *
+     * @param arrayToShuffle
+     * @param random
+     */
+    public static void shuffle(Object[] arrayToShuffle, Random random) {
+        for (int i = 1; i < arrayToShuffle.length; i++) {
+            swap(arrayToShuffle, i, random.nextInt(i + 1));
+        }
+    }
+
+    /**
+     * Same as {@link #shuffle(Object[], Random)}, but for {@link SplittableRandom}
+     *
+     * @param arrayToShuffle
+     * @param random
+     */
+    public static void shuffle(Object[] arrayToShuffle, SplittableRandom random) {
+        for (int i = 1; i < arrayToShuffle.length; i++) {
+            swap(arrayToShuffle, i, random.nextInt(i + 1));
+        }
+    }
+
+    /**
+     * Same as {@link #shuffle(Object[])}, but for an array of {@code int} values
+     *
+     * @param arrayToShuffle
+     */
+    public static void shuffle(int[] arrayToShuffle) {
+        shuffle(arrayToShuffle, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Same as {@link #shuffle(Object[], Random)}, but for an array of {@code int} values
+     *
+     * @param arrayToShuffle
+     * @param random
+     */
+    public static void shuffle(int[] arrayToShuffle, Random random) {
+        for (int i = 1; i < arrayToShuffle.length; i++) {
+            swap(arrayToShuffle, i, random.nextInt(i + 1));
+        }
+    }
+
+    /**
+     * Same as {@link #shuffle(Object[], SplittableRandom)}, but for an array of {@code int} values
+     *
+     * @param arrayToShuffle
+     * @param random
+     */
+    public static void shuffle(int[] arrayToShuffle, SplittableRandom random) {
+        for (int i = 1; i < arrayToShuffle.length; i++) {
+            swap(arrayToShuffle, i, random.nextInt(i + 1));
+        }
+    }
+
+    /**
+     * Same as {@link #shuffle(Object[])}, but for an array of {@code long} values
+     *
+     * @param arrayToShuffle
+     */
+    public static void shuffle(long[] arrayToShuffle) {
+        shuffle(arrayToShuffle, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Same as {@link #shuffle(Object[], Random)}, but for an array of {@code long} values
+     *
+     * @param arrayToShuffle
+     * @param random
+     */
+    public static void shuffle(long[] arrayToShuffle, Random random) {
+        for (int i = 1; i < arrayToShuffle.length; i++) {
+            swap(arrayToShuffle, i, random.nextInt(i + 1));
+        }
+    }
+
+    /**
+     * Same as {@link #shuffle(Object[], SplittableRandom)}, but for an array of {@code long} values
+     *
+     * @param arrayToShuffle
+     * @param random
+     */
+    public static void shuffle(long[] arrayToShuffle, SplittableRandom random) {
+        for (int i = 1; i < arrayToShuffle.length; i++) {
+            swap(arrayToShuffle, i, random.nextInt(i + 1));
+        }
+    }
+
+    /**
+     * Same as {@link #shuffle(Object[])}, but for an array of {@code double} values
+     *
+     * @param arrayToShuffle
+     */
+    public static void shuffle(double[] arrayToShuffle) {
+        shuffle(arrayToShuffle, ThreadLocalRandom.current());
+    }
 
+    /**
+     * Same as {@link #shuffle(Object[], Random)}, but for an array of {@code double} values
+     *
+     * @param arrayToShuffle
+     * @param random
+     */
+    public static void shuffle(double[] arrayToShuffle, Random random) {
         for (int i = 1; i < arrayToShuffle.length; i++) {
-            swap(arrayToShuffle, i, random.nextInt(i));
+            swap(arrayToShuffle, i, random.nextInt(i + 1));
         }
     }
 
+    /**
+     * Same as {@link #shuffle(Object[], SplittableRandom)}, but for an array of {@code double} values
+     *
+     * @param arrayToShuffle
+     * @param random
+     */
+    public static void shuffle(double[] arrayToShuffle, SplittableRandom random) {
+        for (int i = 1; i < arrayToShuffle.length; i++) {
+            swap(arrayToShuffle, i, random.nextInt(i + 1));
+        }
+    }
+
+    /**
+     * Same as {@link #parallelShuffle(Object[], SplittableRandom)}, but seeded from {@link ThreadLocalRandom}
+     *
+     * @param arrayToShuffle
+     */
+    public static void parallelShuffle(Object[] arrayToShuffle) {
+        parallelShuffle(arrayToShuffle, new SplittableRandom(ThreadLocalRandom.current().nextLong()));
+    }
+
+    /**
+     * Uniform shuffle of large arrays which runs in the common {@link java.util.concurrent.ForkJoinPool} in place,
+     * without memory proportional to N (Rao-Sandelius). Every element gets a random bucket, elements are partitioned
+     * in place by buckets, then every bucket is shuffled with {@link #shuffle(Object[], SplittableRandom)} in parallel.
+     * Bucket of an element is a hash of the seed and the index the element had before the shuffle, so buckets are
+     * counted in parallel and the partition, which is a single sequential pass (the same cycle leader permutation
+     * American flag sort does), finds bucket of every element it moves without storing them. It doesn't keep the N - 1
+     * exchanges bound, but results only depend on the state of {@code random}, not on scheduling of threads.
+     *
+     * @param arrayToShuffle
+     * @param random
+     */
+    public static void parallelShuffle(Object[] arrayToShuffle, SplittableRandom random) {
+        int size = arrayToShuffle.length;
+
+        if (size < PARALLEL_SHUFFLE_THRESHOLD) {
+            shuffle(arrayToShuffle, random);
+            return;
+        }
+
+        int buckets = Math.min(MAX_SHUFFLE_BUCKETS, size / (PARALLEL_SHUFFLE_THRESHOLD / 4));
+        int blockSize = (size + buckets - 1) / buckets;
+        long bucketsSeed = random.nextLong();
+
+        long[] bucketSeeds = new long[buckets];
+
+        for (int i = 0; i < buckets; i++) {
+            bucketSeeds[i] = random.nextLong();
+        }
+
+        // blockCounts[block][bucket] is number of elements of the block which go to the bucket
+        int[][] blockCounts = new int[buckets][buckets];
+
+        IntStream.range(0, buckets).parallel().forEach(block -> {
+            int[] counts = blockCounts[block];
+
+            for (int i = block * blockSize; i < Math.min(size, (block + 1) * blockSize); i++) {
+                counts[bucket(bucketsSeed, i, buckets)]++;
+            }
+        });
+
+        int[] bucketStarts = new int[buckets + 1];
+
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            bucketStarts[bucket + 1] = bucketStarts[bucket];
+
+            for (int block = 0; block < buckets; block++) {
+                bucketStarts[bucket + 1] += blockCounts[block][bucket];
+            }
+        }
+
+        // elements at and after next[bucket] (within the bucket) haven't been moved yet, so they are still at their
+        // original indexes, which give their buckets
+        int[] next = Arrays.copyOf(bucketStarts, buckets);
+
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            while (next[bucket] < bucketStarts[bucket + 1]) {
+                int index = next[bucket];
+                Object element = arrayToShuffle[index];
+                int elementBucket = bucket(bucketsSeed, index, buckets);
+
+                while (elementBucket != bucket) {
+                    int target = next[elementBucket]++;
+                    Object displaced = arrayToShuffle[target];
+
+                    arrayToShuffle[target] = element;
+                    element = displaced;
+                    elementBucket = bucket(bucketsSeed, target, buckets);
+                }
+
+                arrayToShuffle[index] = element;
+                next[bucket]++;
+            }
+        }
+
+        IntStream.range(0, buckets).parallel().forEach(bucket -> {
+            SplittableRandom bucketRandom = new SplittableRandom(bucketSeeds[bucket]);
+            int from = bucketStarts[bucket];
+            int to = bucketStarts[bucket + 1];
+
+            for (int i = from + 1; i < to; i++) {
+                swap(arrayToShuffle, i, from + bucketRandom.nextInt(i - from + 1));
+            }
+        });
+    }
+
+    /**
+     * Returns random bucket of the element at {@code index}, the same way {@link SplittableRandom} makes its values
+     * (golden gamma increments mixed with Stafford's variant 13 of the MurmurHash3 finalizer), so buckets of
+     * different indexes are independent and uniform
+     */
+    private static int bucket(long seed, int index, int buckets) {
+        long z = seed + (index + 1L) * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        z ^= z >>> 31;
+
+        return (int) (((z >>> 32) * buckets) >>> 32);
+    }
+
     /**
      * Exchanges values which are located under {@code index1} and {@code index2}
      *
@@ -32,4 +277,215 @@ public class ArrayUtils {
         array[index1] = array[index2];
         array[index2] = tmp;
     }
+
+    /**
+     * Same as {@link #swap(Object[], int, int)}, but for an array of {@code int} values
+     *
+     * @param array
+     * @param index1
+     * @param index2
+     */
+    public static void swap(int[] array, int index1, int index2) {
+        int tmp = array[index1];
+        array[index1] = array[index2];
+        array[index2] = tmp;
+    }
+
+    /**
+     * Same as {@link #swap(Object[], int, int)}, but for an array of {@code long} values
+     *
+     * @param array
+     * @param index1
+     * @param index2
+     */
+    public static void swap(long[] array, int index1, int index2) {
+        long tmp = array[index1];
+        array[index1] = array[index2];
+        array[index2] = tmp;
+    }
+
+    /**
+     * Same as {@link #swap(Object[], int, int)}, but for an array of {@code double} values
+     *
+     * @param array
+     * @param index1
+     * @param index2
+     */
+    public static void swap(double[] array, int index1, int index2) {
+        double tmp = array[index1];
+        array[index1] = array[index2];
+        array[index2] = tmp;
+    }
+
+    /**
+     * Reorders all the {@code arrays} in place, so that element which was at index {@code permutation[i]} goes to index
+     * {@code i}, e.g. applying permutation returned by {@link QuickSort#argsort(int[])} sorts parallel arrays by keys.
+     * Follows cycles of the permutation, so every element is moved exactly once and no additional memory is needed.
+     * Visited elements are marked by flipping bits of {@code permutation}, which is restored before returning.
+     *
+     * @param permutation has to contain every index {@code 0..n - 1} exactly once, otherwise
+     *                    {@link IllegalArgumentException} is thrown before anything is moved and it's left unchanged
+     * @param arrays
+     */
+    public static void applyPermutation(int[] permutation, int[]... arrays) {
+
+        for (int[] array : arrays) {
+            if (array.length != permutation.length) {
+                throw new IllegalArgumentException("Array and permutation lengths differ!");
+            }
+        }
+
+        checkPermutation(permutation);
+
+        for (int start = 0; start < permutation.length; start++) {
+
+            if (permutation[start] < 0) {
+                continue;
+            }
+
+            for (int[] array : arrays) {
+                int tmp = array[start];
+                int index = start;
+
+                while (permutation[index] != start) {
+                    array[index] = array[permutation[index]];
+                    index = permutation[index];
+                }
+
+                array[index] = tmp;
+            }
+
+            markCycle(permutation, start);
+        }
+
+        restore(permutation);
+    }
+
+    /**
+     * Same as {@link #applyPermutation(int[], int[][])}, but for arrays of {@code long} values
+     *
+     * @param permutation
+     * @param arrays
+     */
+    public static void applyPermutation(int[] permutation, long[]... arrays) {
+
+        for (long[] array : arrays) {
+            if (array.length != permutation.length) {
+                throw new IllegalArgumentException("Array and permutation lengths differ!");
+            }
+        }
+
+        checkPermutation(permutation);
+
+        for (int start = 0; start < permutation.length; start++) {
+
+            if (permutation[start] < 0) {
+                continue;
+            }
+
+            for (long[] array : arrays) {
+                long tmp = array[start];
+                int index = start;
+
+                while (permutation[index] != start) {
+                    array[index] = array[permutation[index]];
+                    index = permutation[index];
+                }
+
+                array[index] = tmp;
+            }
+
+            markCycle(permutation, start);
+        }
+
+        restore(permutation);
+    }
+
+    /**
+     * Same as {@link #applyPermutation(int[], int[][])}, but for arrays of {@code double} values
+     *
+     * @param permutation
+     * @param arrays
+     */
+    public static void applyPermutation(int[] permutation, double[]... arrays) {
+
+        for (double[] array : arrays) {
+            if (array.length != permutation.length) {
+                throw new IllegalArgumentException("Array and permutation lengths differ!");
+            }
+        }
+
+        checkPermutation(permutation);
+
+        for (int start = 0; start < permutation.length; start++) {
+
+            if (permutation[start] < 0) {
+                continue;
+            }
+
+            for (double[] array : arrays) {
+                double tmp = array[start];
+                int index = start;
+
+                while (permutation[index] != start) {
+                    array[index] = array[permutation[index]];
+                    index = permutation[index];
+                }
+
+                array[index] = tmp;
+            }
+
+            markCycle(permutation, start);
+        }
+
+        restore(permutation);
+    }
+
+    /**
+     * Checks that every index appears in {@code permutation} exactly once in O(n) time without additional memory:
+     * entry at index {@code v} is flipped when {@code v} is met, so meeting it again finds it flipped already. Flips
+     * are undone before returning or throwing.
+     */
+    private static void checkPermutation(int[] permutation) {
+
+        // range is checked first, so that negative entries are flips only
+        for (int value : permutation) {
+            if (value < 0 || value >= permutation.length) {
+                throw new IllegalArgumentException("Not a permutation, " + value + " is out of range!");
+            }
+        }
+
+        for (int i = 0; i < permutation.length; i++) {
+            int value = permutation[i] < 0 ? ~permutation[i] : permutation[i];
+
+            if (permutation[value] < 0) {
+                for (int k = 0; k < i; k++) {
+                    int flipped = permutation[k] < 0 ? ~permutation[k] : permutation[k];
+                    permutation[flipped] = ~permutation[flipped];
+                }
+
+                throw new IllegalArgumentException("Not a permutation, " + value + " repeats!");
+            }
+
+            permutation[value] = ~permutation[value];
+        }
+
+        restore(permutation);
+    }
+
+    private static void markCycle(int[] permutation, int start) {
+        int index = start;
+
+        do {
+            int next = permutation[index];
+            permutation[index] = ~next;
+            index = next;
+        } while (index != start);
+    }
+
+    private static void restore(int[] permutation) {
+        for (int i = 0; i < permutation.length; i++) {
+            permutation[i] = ~permutation[i];
+        }
+    }
 }
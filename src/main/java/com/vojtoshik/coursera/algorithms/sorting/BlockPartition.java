@@ -0,0 +1,195 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+/**
+ * Block partitioning (Edelkamp and Weiss, BlockQuicksort) for primitive arrays. Instead of branching on every
+ * comparison like Hoare partitioning does, it scans a block of elements from each end and writes offsets of misplaced
+ * elements into small buffers without conditional jumps (the comparison result is just added to the counter), then
+ * swaps misplaced elements pairwise. The scan loops have no data-dependent branches, so they don't suffer from branch
+ * mispredictions on random keys and are easy for JIT to unroll.
+ *
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+class BlockPartition {
+
+    static final int BLOCK_SIZE = 128;
+
+    /**
+     * Partitions {@code [leftBound, rightBound]} around the pivot which has to be at {@code rightBound}. Returns final
+     * index {@code p} of the pivot: all elements before it are not greater and all elements after it are not less than
+     * the pivot. Both offset buffers have to hold at least {@link #BLOCK_SIZE} elements.
+     */
+    static int partition(int[] array, int leftBound, int rightBound, int[] leftOffsets, int[] rightOffsets) {
+        int pivot = array[rightBound];
+
+        // [leftIndex, rightIndex] is the part which isn't partitioned yet
+        int leftIndex = leftBound;
+        int rightIndex = rightBound - 1;
+
+        int leftCount = 0;
+        int rightCount = 0;
+        int leftStart = 0;
+        int rightStart = 0;
+
+        while (rightIndex - leftIndex + 1 >= 2 * BLOCK_SIZE) {
+
+            if (leftCount == 0) {
+                leftStart = 0;
+
+                for (int i = 0; i < BLOCK_SIZE; i++) {
+                    leftOffsets[leftCount] = i;
+                    leftCount += array[leftIndex + i] >= pivot ? 1 : 0;
+                }
+            }
+
+            if (rightCount == 0) {
+                rightStart = 0;
+
+                for (int i = 0; i < BLOCK_SIZE; i++) {
+                    rightOffsets[rightCount] = i;
+                    rightCount += array[rightIndex - i] <= pivot ? 1 : 0;
+                }
+            }
+
+            int count = Math.min(leftCount, rightCount);
+
+            for (int i = 0; i < count; i++) {
+                ArrayUtils.swap(array, leftIndex + leftOffsets[leftStart + i],
+                        rightIndex - rightOffsets[rightStart + i]);
+            }
+
+            leftCount -= count;
+            rightCount -= count;
+            leftStart += count;
+            rightStart += count;
+
+            if (leftCount == 0) {
+                leftIndex += BLOCK_SIZE;
+            }
+
+            if (rightCount == 0) {
+                rightIndex -= BLOCK_SIZE;
+            }
+        }
+
+        // everything before leftIndex is not greater than the pivot and everything after rightIndex is not less than
+        // it, the rest (less than three blocks, including a half-processed one) is partitioned the ordinary way
+        int index = leftIndex;
+
+        for (int i = leftIndex; i <= rightIndex; i++) {
+            if (array[i] < pivot) {
+                ArrayUtils.swap(array, index++, i);
+            }
+        }
+
+        ArrayUtils.swap(array, index, rightBound);
+
+        return index;
+    }
+
+    /**
+     * Same as {@link #partition(int[], int, int, int[], int[])}, but for {@code long} keys
+     */
+    static int partition(long[] array, int leftBound, int rightBound, int[] leftOffsets, int[] rightOffsets) {
+        long pivot = array[rightBound];
+
+        int leftIndex = leftBound;
+        int rightIndex = rightBound - 1;
+
+        int leftCount = 0;
+        int rightCount = 0;
+        int leftStart = 0;
+        int rightStart = 0;
+
+        while (rightIndex - leftIndex + 1 >= 2 * BLOCK_SIZE) {
+
+            if (leftCount == 0) {
+                leftStart = 0;
+
+                for (int i = 0; i < BLOCK_SIZE; i++) {
+                    leftOffsets[leftCount] = i;
+                    leftCount += array[leftIndex + i] >= pivot ? 1 : 0;
+                }
+            }
+
+            if (rightCount == 0) {
+                rightStart = 0;
+
+                for (int i = 0; i < BLOCK_SIZE; i++) {
+                    rightOffsets[rightCount] = i;
+                    rightCount += array[rightIndex - i] <= pivot ? 1 : 0;
+                }
+            }
+
+            int count = Math.min(leftCount, rightCount);
+
+            for (int i = 0; i < count; i++) {
+                ArrayUtils.swap(array, leftIndex + leftOffsets[leftStart + i],
+                        rightIndex - rightOffsets[rightStart + i]);
+            }
+
+            leftCount -= count;
+            rightCount -= count;
+            leftStart += count;
+            rightStart += count;
+
+            if (leftCount == 0) {
+                leftIndex += BLOCK_SIZE;
+            }
+
+            if (rightCount == 0) {
+                rightIndex -= BLOCK_SIZE;
+            }
+        }
+
+        int index = leftIndex;
+
+        for (int i = leftIndex; i <= rightIndex; i++) {
+            if (array[i] < pivot) {
+                ArrayUtils.swap(array, index++, i);
+            }
+        }
+
+        ArrayUtils.swap(array, index, rightBound);
+
+        return index;
+    }
+
+    /**
+     * Moves median of the first, the middle and the last elements of the subarray to {@code rightBound}
+     */
+    static void movePivotToEnd(int[] array, int leftBound, int rightBound) {
+        int middle = leftBound + (rightBound - leftBound) / 2;
+
+        if (array[middle] < array[leftBound]) {
+            ArrayUtils.swap(array, middle, leftBound);
+        }
+
+        if (array[rightBound] < array[leftBound]) {
+            ArrayUtils.swap(array, rightBound, leftBound);
+        }
+
+        // now array[leftBound] is the smallest one, so the median is the smaller of the other two
+        if (array[middle] < array[rightBound]) {
+            ArrayUtils.swap(array, middle, rightBound);
+        }
+    }
+
+    /**
+     * Same as {@link #movePivotToEnd(int[], int, int)}, but for {@code long} keys
+     */
+    static void movePivotToEnd(long[] array, int leftBound, int rightBound) {
+        int middle = leftBound + (rightBound - leftBound) / 2;
+
+        if (array[middle] < array[leftBound]) {
+            ArrayUtils.swap(array, middle, leftBound);
+        }
+
+        if (array[rightBound] < array[leftBound]) {
+            ArrayUtils.swap(array, rightBound, leftBound);
+        }
+
+        if (array[middle] < array[rightBound]) {
+            ArrayUtils.swap(array, middle, rightBound);
+        }
+    }
+}
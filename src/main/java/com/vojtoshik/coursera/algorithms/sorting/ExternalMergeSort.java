@@ -0,0 +1,298 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts files of fixed-width records which don't fit into the heap. Input is read through memory mapping in runs of
+ * {@code recordsPerRun} records, every run is sorted in memory with {@link QuickSort#introSort(Object[], Comparator)}
+ * and spilled to a temporary file. Runs are then merged, at most {@code mergeFanIn} at a time, until a single one is
+ * left, which is written to the output.
+ *
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+public class ExternalMergeSort {
+
+    public static final int DEFAULT_RECORDS_PER_RUN = 1 << 20;
+
+    public static final int DEFAULT_MERGE_FAN_IN = 64;
+
+    /**
+     * Approximate size of the buffer used for writing, reading buffers of all runs which are merged together take the
+     * same amount of memory
+     */
+    private static final int IO_BUFFER_SIZE = 1 << 22;
+
+    private final int recordSize;
+
+    private final Comparator<byte[]> comparator;
+
+    private final int recordsPerRun;
+
+    private final int mergeFanIn;
+
+    private final Path temporaryDirectory;
+
+    public ExternalMergeSort(int recordSize, Comparator<byte[]> comparator) {
+        this(recordSize, comparator, DEFAULT_RECORDS_PER_RUN, DEFAULT_MERGE_FAN_IN, null);
+    }
+
+    /**
+     * @param recordSize size of a single record in bytes
+     * @param comparator
+     * @param recordsPerRun number of records which are sorted in memory at once
+     * @param mergeFanIn max number of runs which are merged at once
+     * @param temporaryDirectory directory for runs, system default temporary directory is used if it's null
+     */
+    public ExternalMergeSort(int recordSize, Comparator<byte[]> comparator, int recordsPerRun, int mergeFanIn,
+                             Path temporaryDirectory) {
+
+        if (recordSize <= 0 || recordsPerRun <= 0 || mergeFanIn < 2) {
+            throw new IllegalArgumentException("Bad input arguments!");
+        }
+
+        if ((long) recordSize * recordsPerRun > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Run can't be larger than 2GB!");
+        }
+
+        this.recordSize = recordSize;
+        this.comparator = comparator;
+        this.recordsPerRun = recordsPerRun;
+        this.mergeFanIn = mergeFanIn;
+        this.temporaryDirectory = temporaryDirectory;
+    }
+
+    /**
+     * Writes records of {@code input} file to {@code output} file in sorted order
+     *
+     * @param input
+     * @param output
+     * @throws IOException
+     */
+    public void sort(Path input, Path output) throws IOException {
+        List<Path> runs = new ArrayList<>();
+
+        // every temporary file is registered here as soon as it's created, so it's deleted even if the sort fails
+        // halfway through a merge pass
+        List<Path> temporaryFiles = new ArrayList<>();
+
+        // all the writes go through this buffer, so only one large direct buffer is allocated per sort
+        ByteBuffer writeBuffer = ByteBuffer.allocateDirect(Math.max(IO_BUFFER_SIZE / recordSize, 1) * recordSize);
+
+        try {
+            try (FileChannel inputChannel = FileChannel.open(input, StandardOpenOption.READ)) {
+                long size = inputChannel.size();
+
+                if (size % recordSize != 0) {
+                    throw new IllegalArgumentException("Input size isn't a multiple of the record size!");
+                }
+
+                if (size <= (long) recordsPerRun * recordSize) {
+                    // everything fits into a single run, so there is nothing to merge
+                    writeSortedRun(inputChannel, 0, size, output, writeBuffer);
+                    return;
+                }
+
+                for (long position = 0; position < size; position += (long) recordsPerRun * recordSize) {
+                    Path run = createTemporaryFile();
+                    temporaryFiles.add(run);
+                    runs.add(run);
+                    writeSortedRun(inputChannel, position, Math.min(size - position, (long) recordsPerRun * recordSize),
+                            run, writeBuffer);
+                }
+            }
+
+            while (runs.size() > mergeFanIn) {
+                List<Path> mergedRuns = new ArrayList<>();
+
+                for (int i = 0; i < runs.size(); i += mergeFanIn) {
+                    List<Path> group = runs.subList(i, Math.min(i + mergeFanIn, runs.size()));
+                    Path mergedRun = createTemporaryFile();
+                    temporaryFiles.add(mergedRun);
+                    mergedRuns.add(mergedRun);
+                    merge(group, mergedRun, writeBuffer);
+                    deleteAll(group);
+                }
+
+                runs = mergedRuns;
+            }
+
+            merge(runs, output, writeBuffer);
+        } finally {
+            deleteAll(temporaryFiles);
+        }
+    }
+
+    /**
+     * Reads {@code length} bytes of records starting at {@code position}, sorts them and writes to {@code destination}
+     */
+    private void writeSortedRun(FileChannel inputChannel, long position, long length, Path destination,
+                                ByteBuffer writeBuffer) throws IOException {
+
+        MappedByteBuffer mappedRun = inputChannel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        byte[][] records = new byte[(int) (length / recordSize)][];
+
+        for (int i = 0; i < records.length; i++) {
+            records[i] = new byte[recordSize];
+            mappedRun.get(records[i]);
+        }
+
+        QuickSort.introSort(records, comparator);
+
+        try (RecordWriter writer = new RecordWriter(destination, writeBuffer)) {
+            for (byte[] record : records) {
+                writer.write(record);
+            }
+        }
+    }
+
+    private void merge(List<Path> runs, Path destination, ByteBuffer writeBuffer) throws IOException {
+        int readBufferSize = Math.max(1, IO_BUFFER_SIZE / runs.size() / recordSize) * recordSize;
+
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size(),
+                (reader1, reader2) -> comparator.compare(reader1.current, reader2.current));
+
+        try (RecordWriter writer = new RecordWriter(destination, writeBuffer)) {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run, readBufferSize);
+
+                if (reader.advance()) {
+                    queue.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                writer.write(reader.current);
+
+                if (reader.advance()) {
+                    queue.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+        } finally {
+            for (RunReader reader : queue) {
+                reader.close();
+            }
+        }
+    }
+
+    private Path createTemporaryFile() throws IOException {
+        return temporaryDirectory == null
+                ? Files.createTempFile("run", ".tmp")
+                : Files.createTempFile(temporaryDirectory, "run", ".tmp");
+    }
+
+    private static void deleteAll(List<Path> files) throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Sequential reader of a sorted run which keeps the record it is currently positioned at
+     */
+    private class RunReader implements Closeable {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer;
+
+        private byte[] current = new byte[recordSize];
+
+        RunReader(Path run, int bufferSize) throws IOException {
+            channel = FileChannel.open(run, StandardOpenOption.READ);
+            buffer = ByteBuffer.allocate(bufferSize);
+            buffer.limit(0);
+        }
+
+        /**
+         * Moves to the next record, returns false if there are no more records in the run
+         */
+        boolean advance() throws IOException {
+
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+
+                // runs consist of whole records only, so buffer is either empty or has whole records after the loop
+                while (buffer.position() % recordSize != 0 || buffer.position() == 0) {
+                    if (channel.read(buffer) < 0) {
+                        break;
+                    }
+                }
+
+                buffer.flip();
+
+                if (!buffer.hasRemaining()) {
+                    return false;
+                }
+            }
+
+            buffer.get(current);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static class RecordWriter implements Closeable {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer;
+
+        /**
+         * {@code buffer} has to hold whole number of records
+         */
+        RecordWriter(Path destination, ByteBuffer buffer) throws IOException {
+            this.buffer = buffer;
+            buffer.clear();
+            channel = FileChannel.open(destination, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void write(byte[] record) throws IOException {
+
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+
+            buffer.put(record);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
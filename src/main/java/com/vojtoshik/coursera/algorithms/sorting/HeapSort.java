@@ -0,0 +1,55 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+import java.util.Comparator;
+
+/**
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+public class HeapSort {
+
+    /**
+     * In-place sort which uses O(n log n) time in the worst case. It's not stable and usually slower than quick sort,
+     * but it doesn't have quadratic inputs.
+     *
+     * @param array
+     * @param comparator
+     * @param <T>
+     */
+    public static <T> void sort(T[] array, Comparator<T> comparator) {
+        sort(array, comparator, 0, array.length - 1);
+    }
+
+    static <T> void sort(T[] array, Comparator<T> comparator, int leftBound, int rightBound) {
+        int size = rightBound - leftBound + 1;
+
+        for (int k = size / 2 - 1; k >= 0; k--) {
+            sink(array, comparator, leftBound, k, size);
+        }
+
+        while (size > 1) {
+            ArrayUtils.swap(array, leftBound, leftBound + --size);
+            sink(array, comparator, leftBound, 0, size);
+        }
+    }
+
+    /**
+     * Moves element with heap index {@code k} down until both its children are not greater than it. Heap indexes are
+     * counted from {@code offset}, so heap may be built on any subarray.
+     */
+    private static <T> void sink(T[] array, Comparator<T> comparator, int offset, int k, int size) {
+        while (2 * k + 1 < size) {
+            int child = 2 * k + 1;
+
+            if (child + 1 < size && comparator.compare(array[offset + child], array[offset + child + 1]) < 0) {
+                child++;
+            }
+
+            if (comparator.compare(array[offset + k], array[offset + child]) >= 0) {
+                return;
+            }
+
+            ArrayUtils.swap(array, offset + k, offset + child);
+            k = child;
+        }
+    }
+}
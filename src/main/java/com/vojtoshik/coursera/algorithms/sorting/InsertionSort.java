@@ -0,0 +1,35 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+import java.util.Comparator;
+
+/**
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+public class InsertionSort {
+
+    /**
+     * Stable in-place sort which uses quadratic time in general, but only linear time for already sorted inputs. Works
+     * well for tiny subarrays, that's why other sorting algorithms fall back to it.
+     *
+     * @param array
+     * @param comparator
+     * @param <T>
+     */
+    public static <T> void sort(T[] array, Comparator<T> comparator) {
+        sort(array, comparator, 0, array.length - 1);
+    }
+
+    static <T> void sort(T[] array, Comparator<T> comparator, int leftBound, int rightBound) {
+        for (int i = leftBound + 1; i <= rightBound; i++) {
+            T value = array[i];
+            int j = i - 1;
+
+            while (j >= leftBound && comparator.compare(array[j], value) > 0) {
+                array[j + 1] = array[j];
+                j--;
+            }
+
+            array[j + 1] = value;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+/**
+ * Compares two elements given by their indexes, so elements may live in any number of parallel arrays
+ *
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+@FunctionalInterface
+public interface IntComparator {
+
+    int compare(int index1, int index2);
+}
@@ -0,0 +1,587 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+import java.util.Comparator;
+
+/**
+ * Adaptive stable merge sort in the spirit of TimSort. The input is split into natural runs (strictly descending ones are
+ * reversed), short runs are extended to a minimal length with binary insertion sort and runs are merged, galloping
+ * through long stretches which come from the same run. Already sorted input takes linear time.
+ *
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+public class MergeSort<T> {
+
+    /**
+     * Arrays shorter than this are sorted with binary insertion sort only, it's also an upper bound of minimal run
+     */
+    private static final int MIN_MERGE = 32;
+
+    /**
+     * Number of consecutive elements taken from the same run after which merge switches to galloping
+     */
+    private static final int MIN_GALLOP = 7;
+
+    /**
+     * Run lengths on the stack grow at least as fast as Fibonacci numbers, so 49 runs are enough for any int length
+     */
+    private static final int MAX_RUNS = 49;
+
+    private final T[] array;
+
+    private final Comparator<T> comparator;
+
+    private final int[] runBase = new int[MAX_RUNS];
+
+    private final int[] runLength = new int[MAX_RUNS];
+
+    private int runsNumber;
+
+    private int minGallop = MIN_GALLOP;
+
+    private T[] buffer;
+
+    private MergeSort(T[] array, Comparator<T> comparator) {
+        this.array = array;
+        this.comparator = comparator;
+    }
+
+    /**
+     * Stable sort which uses O(n log n) time in the worst case and O(n) time for inputs which consist of few ascending
+     * or descending runs. Needs up to n / 2 additional memory.
+     *
+     * @param array
+     * @param comparator
+     * @param <T>
+     */
+    public static <T> void sort(T[] array, Comparator<T> comparator) {
+        new MergeSort<>(array, comparator).sort();
+    }
+
+    private void sort() {
+        int remaining = array.length;
+
+        if (remaining < 2) {
+            return;
+        }
+
+        if (remaining < MIN_MERGE) {
+            binaryInsertionSort(0, remaining, countRunAndMakeAscending(0, remaining));
+            return;
+        }
+
+        int minRun = minRunLength(remaining);
+        int leftBound = 0;
+
+        do {
+            int length = countRunAndMakeAscending(leftBound, array.length);
+
+            if (length < minRun) {
+                int forcedLength = Math.min(remaining, minRun);
+                binaryInsertionSort(leftBound, leftBound + forcedLength, leftBound + length);
+                length = forcedLength;
+            }
+
+            runBase[runsNumber] = leftBound;
+            runLength[runsNumber] = length;
+            runsNumber++;
+
+            mergeCollapse();
+
+            leftBound += length;
+            remaining -= length;
+        } while (remaining != 0);
+
+        while (runsNumber > 1) {
+            int n = runsNumber - 2;
+
+            if (n > 0 && runLength[n - 1] < runLength[n + 1]) {
+                n--;
+            }
+
+            mergeAt(n);
+        }
+    }
+
+    /**
+     * Returns length of the run which starts at {@code leftBound}. Strictly descending run is reversed, so the run is
+     * always ascending afterwards (and stability is preserved as it has no equal elements).
+     */
+    private int countRunAndMakeAscending(int leftBound, int rightBound) {
+        int index = leftBound + 1;
+
+        if (index == rightBound) {
+            return 1;
+        }
+
+        if (comparator.compare(array[index++], array[leftBound]) < 0) {
+            while (index < rightBound && comparator.compare(array[index], array[index - 1]) < 0) {
+                index++;
+            }
+
+            for (int i = leftBound, j = index - 1; i < j; i++, j--) {
+                ArrayUtils.swap(array, i, j);
+            }
+        } else {
+            while (index < rightBound && comparator.compare(array[index], array[index - 1]) >= 0) {
+                index++;
+            }
+        }
+
+        return index - leftBound;
+    }
+
+    /**
+     * Sorts {@code [leftBound, rightBound)} given that {@code [leftBound, start)} is already sorted. Insertion point of
+     * every element is found with binary search, so it takes O(n log n) comparisons and O(n^2) moves.
+     */
+    private void binaryInsertionSort(int leftBound, int rightBound, int start) {
+        for (; start < rightBound; start++) {
+            T value = array[start];
+            int left = leftBound;
+            int right = start;
+
+            while (left < right) {
+                int middle = (left + right) >>> 1;
+
+                if (comparator.compare(value, array[middle]) < 0) {
+                    right = middle;
+                } else {
+                    left = middle + 1;
+                }
+            }
+
+            System.arraycopy(array, left, array, left + 1, start - left);
+            array[left] = value;
+        }
+    }
+
+    /**
+     * Takes six most significant bits of {@code length} and adds one if any of the rest is set, so
+     * {@code length / minRun} is a power of two or a bit less than that, which keeps merges balanced.
+     */
+    private static int minRunLength(int length) {
+        int lowerBits = 0;
+
+        while (length >= MIN_MERGE) {
+            lowerBits |= length & 1;
+            length >>= 1;
+        }
+
+        return length + lowerBits;
+    }
+
+    /**
+     * Merges runs on top of the stack until lengths of the top runs satisfy {@code len[i - 2] > len[i - 1] + len[i]}
+     * and {@code len[i - 1] > len[i]}
+     */
+    private void mergeCollapse() {
+        while (runsNumber > 1) {
+            int n = runsNumber - 2;
+
+            if (n > 0 && runLength[n - 1] <= runLength[n] + runLength[n + 1]
+                    || n > 1 && runLength[n - 2] <= runLength[n - 1] + runLength[n]) {
+
+                if (runLength[n - 1] < runLength[n + 1]) {
+                    n--;
+                }
+            } else if (runLength[n] > runLength[n + 1]) {
+                return;
+            }
+
+            mergeAt(n);
+        }
+    }
+
+    /**
+     * Merges runs {@code i} and {@code i + 1} of the stack
+     */
+    private void mergeAt(int i) {
+        int base1 = runBase[i];
+        int length1 = runLength[i];
+        int base2 = runBase[i + 1];
+        int length2 = runLength[i + 1];
+
+        runLength[i] = length1 + length2;
+
+        if (i == runsNumber - 3) {
+            runBase[i + 1] = runBase[i + 2];
+            runLength[i + 1] = runLength[i + 2];
+        }
+
+        runsNumber--;
+
+        // elements of the first run which go before the whole second run are already in place, and so are elements of
+        // the second run which go after the whole first one
+        int skipped = gallopRight(array[base2], array, base1, length1, 0);
+        base1 += skipped;
+        length1 -= skipped;
+
+        if (length1 == 0) {
+            return;
+        }
+
+        length2 = gallopLeft(array[base1 + length1 - 1], array, base2, length2, length2 - 1);
+
+        if (length2 == 0) {
+            return;
+        }
+
+        if (length1 <= length2) {
+            mergeLow(base1, length1, base2, length2);
+        } else {
+            mergeHigh(base1, length1, base2, length2);
+        }
+    }
+
+    /**
+     * Returns index {@code k} in {@code [0, length]} such that {@code source[base + k - 1] < key <= source[base + k]},
+     * i.e. the leftmost position where {@code key} may be inserted. Search starts exponentially from {@code hint}.
+     */
+    private int gallopLeft(T key, T[] source, int base, int length, int hint) {
+        int lastOffset = 0;
+        int offset = 1;
+
+        if (comparator.compare(key, source[base + hint]) > 0) {
+            int maxOffset = length - hint;
+
+            while (offset < maxOffset && comparator.compare(key, source[base + hint + offset]) > 0) {
+                lastOffset = offset;
+                offset = (offset << 1) + 1;
+
+                if (offset <= 0) {
+                    offset = maxOffset;
+                }
+            }
+
+            offset = Math.min(offset, maxOffset);
+            lastOffset += hint;
+            offset += hint;
+        } else {
+            int maxOffset = hint + 1;
+
+            while (offset < maxOffset && comparator.compare(key, source[base + hint - offset]) <= 0) {
+                lastOffset = offset;
+                offset = (offset << 1) + 1;
+
+                if (offset <= 0) {
+                    offset = maxOffset;
+                }
+            }
+
+            offset = Math.min(offset, maxOffset);
+            int tmp = lastOffset;
+            lastOffset = hint - offset;
+            offset = hint - tmp;
+        }
+
+        // now source[base + lastOffset] < key <= source[base + offset], binary search finishes the job
+        lastOffset++;
+
+        while (lastOffset < offset) {
+            int middle = lastOffset + ((offset - lastOffset) >>> 1);
+
+            if (comparator.compare(key, source[base + middle]) > 0) {
+                lastOffset = middle + 1;
+            } else {
+                offset = middle;
+            }
+        }
+
+        return offset;
+    }
+
+    /**
+     * Same as {@link #gallopLeft}, but returns the rightmost position, i.e.
+     * {@code source[base + k - 1] <= key < source[base + k]}
+     */
+    private int gallopRight(T key, T[] source, int base, int length, int hint) {
+        int lastOffset = 0;
+        int offset = 1;
+
+        if (comparator.compare(key, source[base + hint]) < 0) {
+            int maxOffset = hint + 1;
+
+            while (offset < maxOffset && comparator.compare(key, source[base + hint - offset]) < 0) {
+                lastOffset = offset;
+                offset = (offset << 1) + 1;
+
+                if (offset <= 0) {
+                    offset = maxOffset;
+                }
+            }
+
+            offset = Math.min(offset, maxOffset);
+            int tmp = lastOffset;
+            lastOffset = hint - offset;
+            offset = hint - tmp;
+        } else {
+            int maxOffset = length - hint;
+
+            while (offset < maxOffset && comparator.compare(key, source[base + hint + offset]) >= 0) {
+                lastOffset = offset;
+                offset = (offset << 1) + 1;
+
+                if (offset <= 0) {
+                    offset = maxOffset;
+                }
+            }
+
+            offset = Math.min(offset, maxOffset);
+            lastOffset += hint;
+            offset += hint;
+        }
+
+        lastOffset++;
+
+        while (lastOffset < offset) {
+            int middle = lastOffset + ((offset - lastOffset) >>> 1);
+
+            if (comparator.compare(key, source[base + middle]) < 0) {
+                offset = middle;
+            } else {
+                lastOffset = middle + 1;
+            }
+        }
+
+        return offset;
+    }
+
+    /**
+     * Merges two adjacent runs from left to right, the first (shorter) one is moved into the buffer. It's known that
+     * the first element of the second run goes first and the last element of the first run goes last.
+     */
+    private void mergeLow(int base1, int length1, int base2, int length2) {
+        T[] tmp = ensureBufferCapacity(length1);
+        System.arraycopy(array, base1, tmp, 0, length1);
+
+        int cursor1 = 0;
+        int cursor2 = base2;
+        int destination = base1;
+
+        array[destination++] = array[cursor2++];
+
+        if (--length2 == 0) {
+            System.arraycopy(tmp, cursor1, array, destination, length1);
+            return;
+        }
+
+        if (length1 == 1) {
+            System.arraycopy(array, cursor2, array, destination, length2);
+            array[destination + length2] = tmp[cursor1];
+            return;
+        }
+
+        int minGallop = this.minGallop;
+
+        outer:
+        while (true) {
+            int count1 = 0;
+            int count2 = 0;
+
+            // one element at a time until one of the runs starts winning consistently
+            do {
+                if (comparator.compare(array[cursor2], tmp[cursor1]) < 0) {
+                    array[destination++] = array[cursor2++];
+                    count2++;
+                    count1 = 0;
+
+                    if (--length2 == 0) {
+                        break outer;
+                    }
+                } else {
+                    array[destination++] = tmp[cursor1++];
+                    count1++;
+                    count2 = 0;
+
+                    if (--length1 == 1) {
+                        break outer;
+                    }
+                }
+            } while ((count1 | count2) < minGallop);
+
+            // galloping, until it stops paying off
+            do {
+                count1 = gallopRight(array[cursor2], tmp, cursor1, length1, 0);
+
+                if (count1 != 0) {
+                    System.arraycopy(tmp, cursor1, array, destination, count1);
+                    destination += count1;
+                    cursor1 += count1;
+                    length1 -= count1;
+
+                    if (length1 <= 1) {
+                        break outer;
+                    }
+                }
+
+                array[destination++] = array[cursor2++];
+
+                if (--length2 == 0) {
+                    break outer;
+                }
+
+                count2 = gallopLeft(tmp[cursor1], array, cursor2, length2, 0);
+
+                if (count2 != 0) {
+                    System.arraycopy(array, cursor2, array, destination, count2);
+                    destination += count2;
+                    cursor2 += count2;
+                    length2 -= count2;
+
+                    if (length2 == 0) {
+                        break outer;
+                    }
+                }
+
+                array[destination++] = tmp[cursor1++];
+
+                if (--length1 == 1) {
+                    break outer;
+                }
+
+                minGallop--;
+            } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+
+            minGallop = Math.max(minGallop, 0) + 2;
+        }
+
+        this.minGallop = Math.max(minGallop, 1);
+
+        if (length1 == 1) {
+            System.arraycopy(array, cursor2, array, destination, length2);
+            array[destination + length2] = tmp[cursor1];
+        } else if (length1 == 0) {
+            throw new IllegalArgumentException("Comparator violates its general contract!");
+        } else {
+            System.arraycopy(tmp, cursor1, array, destination, length1);
+        }
+    }
+
+    /**
+     * Same as {@link #mergeLow}, but merges from right to left and moves the second (shorter) run into the buffer
+     */
+    private void mergeHigh(int base1, int length1, int base2, int length2) {
+        T[] tmp = ensureBufferCapacity(length2);
+        System.arraycopy(array, base2, tmp, 0, length2);
+
+        int cursor1 = base1 + length1 - 1;
+        int cursor2 = length2 - 1;
+        int destination = base2 + length2 - 1;
+
+        array[destination--] = array[cursor1--];
+
+        if (--length1 == 0) {
+            System.arraycopy(tmp, 0, array, destination - (length2 - 1), length2);
+            return;
+        }
+
+        if (length2 == 1) {
+            destination -= length1;
+            cursor1 -= length1;
+            System.arraycopy(array, cursor1 + 1, array, destination + 1, length1);
+            array[destination] = tmp[cursor2];
+            return;
+        }
+
+        int minGallop = this.minGallop;
+
+        outer:
+        while (true) {
+            int count1 = 0;
+            int count2 = 0;
+
+            do {
+                if (comparator.compare(tmp[cursor2], array[cursor1]) < 0) {
+                    array[destination--] = array[cursor1--];
+                    count1++;
+                    count2 = 0;
+
+                    if (--length1 == 0) {
+                        break outer;
+                    }
+                } else {
+                    array[destination--] = tmp[cursor2--];
+                    count2++;
+                    count1 = 0;
+
+                    if (--length2 == 1) {
+                        break outer;
+                    }
+                }
+            } while ((count1 | count2) < minGallop);
+
+            do {
+                count1 = length1 - gallopRight(tmp[cursor2], array, base1, length1, length1 - 1);
+
+                if (count1 != 0) {
+                    destination -= count1;
+                    cursor1 -= count1;
+                    length1 -= count1;
+                    System.arraycopy(array, cursor1 + 1, array, destination + 1, count1);
+
+                    if (length1 == 0) {
+                        break outer;
+                    }
+                }
+
+                array[destination--] = tmp[cursor2--];
+
+                if (--length2 == 1) {
+                    break outer;
+                }
+
+                count2 = length2 - gallopLeft(array[cursor1], tmp, 0, length2, length2 - 1);
+
+                if (count2 != 0) {
+                    destination -= count2;
+                    cursor2 -= count2;
+                    length2 -= count2;
+                    System.arraycopy(tmp, cursor2 + 1, array, destination + 1, count2);
+
+                    if (length2 <= 1) {
+                        break outer;
+                    }
+                }
+
+                array[destination--] = array[cursor1--];
+
+                if (--length1 == 0) {
+                    break outer;
+                }
+
+                minGallop--;
+            } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+
+            minGallop = Math.max(minGallop, 0) + 2;
+        }
+
+        this.minGallop = Math.max(minGallop, 1);
+
+        if (length2 == 1) {
+            destination -= length1;
+            cursor1 -= length1;
+            System.arraycopy(array, cursor1 + 1, array, destination + 1, length1);
+            array[destination] = tmp[cursor2];
+        } else if (length2 == 0) {
+            throw new IllegalArgumentException("Comparator violates its general contract!");
+        } else {
+            System.arraycopy(tmp, 0, array, destination - (length2 - 1), length2);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T[] ensureBufferCapacity(int capacity) {
+
+        if (buffer == null || buffer.length < capacity) {
+            int newCapacity = buffer == null ? MIN_MERGE : buffer.length;
+
+            while (newCapacity < capacity) {
+                newCapacity <<= 1;
+            }
+
+            buffer = (T[]) new Object[Math.min(newCapacity, array.length >>> 1)];
+        }
+
+        return buffer;
+    }
+}
@@ -1,12 +1,38 @@
 package com.vojtoshik.coursera.algorithms.sorting;
 
 import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * @author Anton Voitovych <vojtoshik@gmail.com>
  */
 public class QuickSort {
 
+    /**
+     * Size of a subarray below which {@link #parallelSort(Object[], Comparator)} stops forking new tasks and sorts
+     * the rest sequentially.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 13;
+
+    /**
+     * Subarrays of this size or smaller are finished with insertion sort
+     */
+    private static final int INSERTION_SORT_CUTOFF = 16;
+
+    /**
+     * Starting from this size pivot is picked as a median of three medians (Tukey's ninther) instead of a median of
+     * three elements
+     */
+    private static final int NINTHER_THRESHOLD = 40;
+
+    /**
+     * Subarrays of primitives shorter than this are partitioned with Hoare partitioning as the block one has a larger
+     * constant overhead
+     */
+    private static final int BLOCK_PARTITION_THRESHOLD = 1 << 12;
+
     /**
      * Traditional implementation of quick sort which doesn't work that efficient (in fact, it uses quadratic time) for
      * inputs that have a lot of equal elements.
@@ -36,11 +62,266 @@ public class QuickSort {
         sortWith3WayPartitioning(array, comparator, 0, array.length - 1);
     }
 
+    /**
+     * Same as {@link #sortWith3WayPartitioning(Object[], Comparator)}, but uses Bentley-McIlroy partitioning: elements
+     * equal to the pivot are kept at both ends of the subarray during the scan and swapped into the middle only after
+     * it, so mostly distinct inputs need far fewer swaps than with Dijkstra's scheme. Pivot is sampled (median of three
+     * or ninther) and small subarrays are finished with insertion sort.
+     *
+     * @param array
+     * @param comparator
+     * @param <T>
+     */
+    public static <T> void sortWith3WayPartitioningFast(T[] array, Comparator<T> comparator) {
+        sortWith3WayPartitioningFast(array, comparator, 0, array.length - 1);
+    }
+
+    /**
+     * Introspective sort: quick sort with median-of-three (or ninther) pivots which finishes small subarrays with
+     * insertion sort and switches to heap sort once recursion gets deeper than 2 * log2(n). Uses O(n log n) time in the
+     * worst case, so unlike {@link #sort(Object[], Comparator)} it doesn't need to shuffle the input first.
+     *
+     * @param array
+     * @param comparator
+     * @param <T>
+     */
+    public static <T> void introSort(T[] array, Comparator<T> comparator) {
+        introSort(array, comparator, 0, array.length - 1, 2 * log2(array.length));
+    }
+
+    /**
+     * Quickselect: rearranges {@code array} so that {@code array[k]} holds the element which would be there if the array
+     * was sorted, all elements before it are not greater and all elements after it are not less than it. Uses expected
+     * linear time.
+     *
+     * @param array
+     * @param k index of the element to select, counted from zero
+     * @param comparator
+     * @param <T>
+     * @return k-th smallest element
+     */
+    public static <T> T select(T[] array, int k, Comparator<T> comparator) {
+
+        if (k < 0 || k >= array.length) {
+            throw new IndexOutOfBoundsException("Value has to be between 0 and " + (array.length - 1) + " " + k);
+        }
+
+        select(array, comparator, 0, array.length - 1, k);
+
+        return array[k];
+    }
+
+    /**
+     * Moves {@code k} smallest elements to the beginning of {@code array} in sorted order, the rest of elements go after
+     * them in no particular order. Uses expected O(n + k log k) time.
+     *
+     * @param array
+     * @param k number of elements to sort
+     * @param comparator
+     * @param <T>
+     */
+    public static <T> void partialSort(T[] array, int k, Comparator<T> comparator) {
+
+        if (k < 0 || k > array.length) {
+            throw new IndexOutOfBoundsException("Value has to be between 0 and " + array.length + " " + k);
+        }
+
+        if (k == 0) {
+            return;
+        }
+
+        select(array, comparator, 0, array.length - 1, k - 1);
+        introSort(array, comparator, 0, k - 1, 2 * log2(k));
+    }
+
+    /**
+     * Returns permutation of indexes {@code 0..n - 1} in the order defined by {@code comparator}, i.e. the element which
+     * goes {@code i}-th in sorted order has index {@code permutation[i]}. Elements themselves aren't moved, use
+     * {@link ArrayUtils#applyPermutation(int[], int[][])} and its overloads to reorder the arrays they are stored in.
+     * Equal elements keep their relative order.
+     *
+     * @param n number of elements
+     * @param comparator
+     * @return permutation of indexes
+     */
+    public static int[] argsort(int n, IntComparator comparator) {
+        int[] permutation = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            permutation[i] = i;
+        }
+
+        // ties are broken by index, so the result is stable and there are no equal elements to slow partitioning down
+        argsort(permutation, (index1, index2) -> {
+            int cmp = comparator.compare(index1, index2);
+            return cmp != 0 ? cmp : Integer.compare(index1, index2);
+        }, 0, n - 1);
+
+        return permutation;
+    }
+
+    /**
+     * Same as {@link #argsort(int, IntComparator)}, but the order is defined by {@code keys}
+     *
+     * @param keys
+     * @return permutation of indexes
+     */
+    public static int[] argsort(int[] keys) {
+        return argsort(keys.length, (index1, index2) -> Integer.compare(keys[index1], keys[index2]));
+    }
+
+    /**
+     * Same as {@link #argsort(int, IntComparator)}, but the order is defined by {@code keys}
+     *
+     * @param keys
+     * @return permutation of indexes
+     */
+    public static int[] argsort(long[] keys) {
+        return argsort(keys.length, (index1, index2) -> Long.compare(keys[index1], keys[index2]));
+    }
+
+    /**
+     * Same as {@link #argsort(int, IntComparator)}, but the order is defined by {@code keys} compared with
+     * {@link Double#compare(double, double)}
+     *
+     * @param keys
+     * @return permutation of indexes
+     */
+    public static int[] argsort(double[] keys) {
+        return argsort(keys.length, (index1, index2) -> Double.compare(keys[index1], keys[index2]));
+    }
+
+    /**
+     * Same as {@link #sort(Object[], Comparator)}, but for {@code int} keys. Large subarrays are partitioned with
+     * branch-free block partitioning, see {@link BlockPartition}.
+     *
+     * @param array
+     */
+    public static void sort(int[] array) {
+        // we need this as quick sort may degrade to O(n^2) for some specific-designed inputs
+        ArrayUtils.shuffle(array);
+        sortWithBlockPartitioning(array, 0, array.length - 1, new int[BlockPartition.BLOCK_SIZE],
+                new int[BlockPartition.BLOCK_SIZE]);
+    }
+
+    /**
+     * Same as {@link #sortWith3WayPartitioning(Object[], Comparator)}, but for {@code int} keys.
+     *
+     * @param array
+     */
+    public static void sortWith3WayPartitioning(int[] array) {
+        sortWith3WayPartitioning(array, 0, array.length - 1);
+    }
+
+    /**
+     * Same as {@link #sort(Object[], Comparator)}, but for {@code long} keys. Large subarrays are partitioned with
+     * branch-free block partitioning, see {@link BlockPartition}.
+     *
+     * @param array
+     */
+    public static void sort(long[] array) {
+        // we need this as quick sort may degrade to O(n^2) for some specific-designed inputs
+        ArrayUtils.shuffle(array);
+        sortWithBlockPartitioning(array, 0, array.length - 1, new int[BlockPartition.BLOCK_SIZE],
+                new int[BlockPartition.BLOCK_SIZE]);
+    }
+
+    /**
+     * Same as {@link #sortWith3WayPartitioning(Object[], Comparator)}, but for {@code long} keys.
+     *
+     * @param array
+     */
+    public static void sortWith3WayPartitioning(long[] array) {
+        sortWith3WayPartitioning(array, 0, array.length - 1);
+    }
+
+    /**
+     * Same as {@link #sort(Object[], Comparator)}, but for {@code double} keys. Keys are ordered the
+     * same way as {@link Double#compare(double, double)} does, so {@code -0.0 < 0.0} and NaN goes last.
+     *
+     * @param array
+     */
+    public static void sort(double[] array) {
+        // we need this as quick sort may degrade to O(n^2) for some specific-designed inputs
+        ArrayUtils.shuffle(array);
+        sort(array, 0, array.length - 1);
+    }
+
+    /**
+     * Same as {@link #sortWith3WayPartitioning(Object[], Comparator)}, but for {@code double} keys. Keys are ordered the
+     * same way as {@link Double#compare(double, double)} does, so {@code -0.0 < 0.0} and NaN goes last.
+     *
+     * @param array
+     */
+    public static void sortWith3WayPartitioning(double[] array) {
+        sortWith3WayPartitioning(array, 0, array.length - 1);
+    }
+
+    /**
+     * Parallel version of {@link #sort(Object[], Comparator)} which runs in the common {@link ForkJoinPool}.
+     *
+     * @param array
+     * @param comparator
+     * @param <T>
+     */
+    public static <T> void parallelSort(T[] array, Comparator<T> comparator) {
+        parallelSort(array, comparator, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parallel version of {@link #sort(Object[], Comparator)} which runs in the given {@code pool}, so it doesn't
+     * compete for threads with the rest of the application.
+     *
+     * @param array
+     * @param comparator
+     * @param pool
+     * @param <T>
+     */
+    public static <T> void parallelSort(T[] array, Comparator<T> comparator, ForkJoinPool pool) {
+        parallelSort(array, comparator, pool, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Parallel version of {@link #sort(Object[], Comparator)}. Both halves of every partition are sorted as separate
+     * fork-join tasks until the subarray gets shorter than {@code threshold}, then it is sorted sequentially.
+     * <p>
+     * It's in place the same way the sequential sort is: the array is shuffled first with
+     * {@link ArrayUtils#parallelShuffle(Object[])}, which doesn't take memory proportional to N either.
+     *
+     * @param array
+     * @param comparator
+     * @param pool
+     * @param threshold
+     * @param <T>
+     */
+    public static <T> void parallelSort(T[] array, Comparator<T> comparator, ForkJoinPool pool, int threshold) {
+
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold has to be positive!");
+        }
+
+        // we need this as quick sort may degrade to O(n^2) for some specific-designed inputs, parallel streams of the
+        // shuffle run in the pool of the task which invokes them
+        pool.invoke(ForkJoinTask.adapt(() -> ArrayUtils.parallelShuffle(array)));
+        pool.invoke(new ParallelSortTask<>(array, comparator, 0, array.length - 1, threshold));
+    }
+
     private static <T> void sort(T[] array, Comparator<T> comparator, int leftBound, int rightBound) {
         if (leftBound >= rightBound) {
             return;
         }
 
+        int rightIndex = partition(array, comparator, leftBound, rightBound);
+
+        sort(array, comparator, leftBound, rightIndex);
+        sort(array, comparator, rightIndex + 1, rightBound);
+    }
+
+    /**
+     * Hoare partitioning around the middle element. Returns index {@code p} such that every element in
+     * {@code [leftBound, p]} is not greater than any element in {@code [p + 1, rightBound]}.
+     */
+    private static <T> int partition(T[] array, Comparator<T> comparator, int leftBound, int rightBound) {
         int leftIndex = leftBound - 1;
         int rightIndex = rightBound + 1;
 
@@ -61,8 +342,267 @@ public class QuickSort {
             }
         }
 
-        sort(array, comparator, leftBound, rightIndex);
-        sort(array, comparator, rightIndex + 1, rightBound);
+        return rightIndex;
+    }
+
+    private static <T> void introSort(T[] array, Comparator<T> comparator, int leftBound, int rightBound,
+                                      int depthLimit) {
+
+        while (rightBound - leftBound >= INSERTION_SORT_CUTOFF) {
+
+            if (depthLimit-- == 0) {
+                HeapSort.sort(array, comparator, leftBound, rightBound);
+                return;
+            }
+
+            // partition() takes the middle element as a pivot, so we just put a better one there
+            ArrayUtils.swap(array, pivotIndex(array, comparator, leftBound, rightBound),
+                    leftBound + (rightBound - leftBound) / 2);
+
+            int rightIndex = partition(array, comparator, leftBound, rightBound);
+
+            // recursion goes into the smaller part only, so the stack stays O(log n) deep
+            if (rightIndex - leftBound < rightBound - rightIndex) {
+                introSort(array, comparator, leftBound, rightIndex, depthLimit);
+                leftBound = rightIndex + 1;
+            } else {
+                introSort(array, comparator, rightIndex + 1, rightBound, depthLimit);
+                rightBound = rightIndex;
+            }
+        }
+
+        InsertionSort.sort(array, comparator, leftBound, rightBound);
+    }
+
+    private static <T> void sortWith3WayPartitioningFast(T[] array, Comparator<T> comparator, int leftBound,
+                                                         int rightBound) {
+
+        while (rightBound - leftBound >= INSERTION_SORT_CUTOFF) {
+            ArrayUtils.swap(array, pivotIndex(array, comparator, leftBound, rightBound), leftBound);
+
+            long bounds = partition3Way(array, comparator, leftBound, rightBound);
+            int lowerThanIndex = lowerBound(bounds);
+            int greaterThanIndex = upperBound(bounds);
+
+            // recursion goes into the smaller part only, so the stack stays O(log n) deep
+            if (lowerThanIndex - leftBound < rightBound - greaterThanIndex) {
+                sortWith3WayPartitioningFast(array, comparator, leftBound, lowerThanIndex - 1);
+                leftBound = greaterThanIndex + 1;
+            } else {
+                sortWith3WayPartitioningFast(array, comparator, greaterThanIndex + 1, rightBound);
+                rightBound = lowerThanIndex - 1;
+            }
+        }
+
+        InsertionSort.sort(array, comparator, leftBound, rightBound);
+    }
+
+    private static <T> void select(T[] array, Comparator<T> comparator, int leftBound, int rightBound, int k) {
+
+        while (rightBound - leftBound >= INSERTION_SORT_CUTOFF) {
+            ArrayUtils.swap(array, pivotIndex(array, comparator, leftBound, rightBound), leftBound);
+
+            long bounds = partition3Way(array, comparator, leftBound, rightBound);
+
+            if (k < lowerBound(bounds)) {
+                rightBound = lowerBound(bounds) - 1;
+            } else if (k > upperBound(bounds)) {
+                leftBound = upperBound(bounds) + 1;
+            } else {
+                return;
+            }
+        }
+
+        InsertionSort.sort(array, comparator, leftBound, rightBound);
+    }
+
+    /**
+     * Bentley-McIlroy 3-way partitioning around {@code array[leftBound]}. Afterwards elements in
+     * {@code [leftBound, lt - 1]} are less than the pivot, elements in {@code [lt, gt]} are equal to it and elements in
+     * {@code [gt + 1, rightBound]} are greater. Both {@code lt} and {@code gt} are packed into a single long, use
+     * {@link #lowerBound(long)} and {@link #upperBound(long)} to get them back.
+     */
+    private static <T> long partition3Way(T[] array, Comparator<T> comparator, int leftBound, int rightBound) {
+        T mediumValue = array[leftBound];
+
+        int leftIndex = leftBound;
+        int rightIndex = rightBound + 1;
+
+        // [leftBound, leftEqualIndex] and [rightEqualIndex, rightBound] hold elements equal to the pivot
+        int leftEqualIndex = leftBound;
+        int rightEqualIndex = rightBound + 1;
+
+        while (true) {
+
+            while (comparator.compare(array[++leftIndex], mediumValue) < 0) {
+                if (leftIndex == rightBound) {
+                    break;
+                }
+            }
+
+            while (comparator.compare(mediumValue, array[--rightIndex]) < 0) {
+                if (rightIndex == leftBound) {
+                    break;
+                }
+            }
+
+            if (leftIndex == rightIndex && comparator.compare(array[leftIndex], mediumValue) == 0) {
+                ArrayUtils.swap(array, ++leftEqualIndex, leftIndex);
+            }
+
+            if (leftIndex >= rightIndex) {
+                break;
+            }
+
+            ArrayUtils.swap(array, leftIndex, rightIndex);
+
+            if (comparator.compare(array[leftIndex], mediumValue) == 0) {
+                ArrayUtils.swap(array, ++leftEqualIndex, leftIndex);
+            }
+
+            if (comparator.compare(array[rightIndex], mediumValue) == 0) {
+                ArrayUtils.swap(array, --rightEqualIndex, rightIndex);
+            }
+        }
+
+        leftIndex = rightIndex + 1;
+
+        for (int k = leftBound; k <= leftEqualIndex; k++) {
+            ArrayUtils.swap(array, k, rightIndex--);
+        }
+
+        for (int k = rightBound; k >= rightEqualIndex; k--) {
+            ArrayUtils.swap(array, k, leftIndex++);
+        }
+
+        return ((long) (rightIndex + 1) << 32) | ((leftIndex - 1) & 0xFFFFFFFFL);
+    }
+
+    private static int lowerBound(long bounds) {
+        return (int) (bounds >> 32);
+    }
+
+    private static int upperBound(long bounds) {
+        return (int) bounds;
+    }
+
+    /**
+     * Picks a pivot for the subarray: median of the first, the middle and the last elements for short subarrays and
+     * Tukey's ninther for longer ones.
+     */
+    private static <T> int pivotIndex(T[] array, Comparator<T> comparator, int leftBound, int rightBound) {
+        int size = rightBound - leftBound + 1;
+        int middle = leftBound + size / 2;
+
+        if (size < NINTHER_THRESHOLD) {
+            return medianOf3(array, comparator, leftBound, middle, rightBound);
+        }
+
+        int step = size / 8;
+
+        return medianOf3(array, comparator,
+                medianOf3(array, comparator, leftBound, leftBound + step, leftBound + 2 * step),
+                medianOf3(array, comparator, middle - step, middle, middle + step),
+                medianOf3(array, comparator, rightBound - 2 * step, rightBound - step, rightBound));
+    }
+
+    private static <T> int medianOf3(T[] array, Comparator<T> comparator, int i, int j, int k) {
+        if (comparator.compare(array[i], array[j]) < 0) {
+            if (comparator.compare(array[j], array[k]) < 0) {
+                return j;
+            }
+
+            return comparator.compare(array[i], array[k]) < 0 ? k : i;
+        }
+
+        if (comparator.compare(array[k], array[j]) < 0) {
+            return j;
+        }
+
+        return comparator.compare(array[k], array[i]) < 0 ? k : i;
+    }
+
+    /**
+     * Quick sort of indexes with a sampled pivot. {@code comparator} never returns zero for different indexes.
+     */
+    private static void argsort(int[] permutation, IntComparator comparator, int leftBound, int rightBound) {
+
+        while (rightBound - leftBound >= INSERTION_SORT_CUTOFF) {
+            int size = rightBound - leftBound + 1;
+            int middle = leftBound + size / 2;
+            int pivotIndex;
+
+            if (size < NINTHER_THRESHOLD) {
+                pivotIndex = medianOf3(permutation, comparator, leftBound, middle, rightBound);
+            } else {
+                int step = size / 8;
+
+                pivotIndex = medianOf3(permutation, comparator,
+                        medianOf3(permutation, comparator, leftBound, leftBound + step, leftBound + 2 * step),
+                        medianOf3(permutation, comparator, middle - step, middle, middle + step),
+                        medianOf3(permutation, comparator, rightBound - 2 * step, rightBound - step, rightBound));
+            }
+
+            int mediumValue = permutation[pivotIndex];
+            int leftIndex = leftBound - 1;
+            int rightIndex = rightBound + 1;
+
+            while (leftIndex < rightIndex) {
+
+                do {
+                    leftIndex++;
+                } while (comparator.compare(permutation[leftIndex], mediumValue) < 0);
+
+                do {
+                    rightIndex--;
+                } while (comparator.compare(permutation[rightIndex], mediumValue) > 0);
+
+                if (leftIndex < rightIndex) {
+                    ArrayUtils.swap(permutation, leftIndex, rightIndex);
+                }
+            }
+
+            // recursion goes into the smaller part only, so the stack stays O(log n) deep
+            if (rightIndex - leftBound < rightBound - rightIndex) {
+                argsort(permutation, comparator, leftBound, rightIndex);
+                leftBound = rightIndex + 1;
+            } else {
+                argsort(permutation, comparator, rightIndex + 1, rightBound);
+                rightBound = rightIndex;
+            }
+        }
+
+        for (int i = leftBound + 1; i <= rightBound; i++) {
+            int value = permutation[i];
+            int j = i - 1;
+
+            while (j >= leftBound && comparator.compare(permutation[j], value) > 0) {
+                permutation[j + 1] = permutation[j];
+                j--;
+            }
+
+            permutation[j + 1] = value;
+        }
+    }
+
+    private static int medianOf3(int[] permutation, IntComparator comparator, int i, int j, int k) {
+        if (comparator.compare(permutation[i], permutation[j]) < 0) {
+            if (comparator.compare(permutation[j], permutation[k]) < 0) {
+                return j;
+            }
+
+            return comparator.compare(permutation[i], permutation[k]) < 0 ? k : i;
+        }
+
+        if (comparator.compare(permutation[k], permutation[j]) < 0) {
+            return j;
+        }
+
+        return comparator.compare(permutation[k], permutation[i]) < 0 ? k : i;
+    }
+
+    private static int log2(int value) {
+        return value == 0 ? 0 : 31 - Integer.numberOfLeadingZeros(value);
     }
 
     private static <T> void sortWith3WayPartitioning(T[] array, Comparator<T> comparator, int leftBound, int rightBound) {
@@ -92,4 +632,252 @@ public class QuickSort {
         sortWith3WayPartitioning(array, comparator, leftBound, lowerThanIndex - 1);
         sortWith3WayPartitioning(array, comparator, greaterThanIndex + 1, rightBound);
     }
+
+    private static void sortWithBlockPartitioning(int[] array, int leftBound, int rightBound, int[] leftOffsets,
+                                                  int[] rightOffsets) {
+
+        while (rightBound - leftBound >= BLOCK_PARTITION_THRESHOLD) {
+            BlockPartition.movePivotToEnd(array, leftBound, rightBound);
+
+            int pivotIndex = BlockPartition.partition(array, leftBound, rightBound, leftOffsets, rightOffsets);
+
+            // recursion goes into the smaller part only, so the stack stays O(log n) deep
+            if (pivotIndex - leftBound < rightBound - pivotIndex) {
+                sortWithBlockPartitioning(array, leftBound, pivotIndex - 1, leftOffsets, rightOffsets);
+                leftBound = pivotIndex + 1;
+            } else {
+                sortWithBlockPartitioning(array, pivotIndex + 1, rightBound, leftOffsets, rightOffsets);
+                rightBound = pivotIndex - 1;
+            }
+        }
+
+        sort(array, leftBound, rightBound);
+    }
+
+    private static void sort(int[] array, int leftBound, int rightBound) {
+        if (leftBound >= rightBound) {
+            return;
+        }
+
+        int leftIndex = leftBound - 1;
+        int rightIndex = rightBound + 1;
+
+        int mediumValue = array[leftBound + (rightBound - leftBound) / 2];
+
+        while (leftIndex < rightIndex) {
+
+            do {
+                leftIndex++;
+            } while (array[leftIndex] < mediumValue);
+
+            do {
+                rightIndex--;
+            } while (array[rightIndex] > mediumValue);
+
+            if (leftIndex < rightIndex) {
+                ArrayUtils.swap(array, leftIndex, rightIndex);
+            }
+        }
+
+        sort(array, leftBound, rightIndex);
+        sort(array, rightIndex + 1, rightBound);
+    }
+
+    private static void sortWith3WayPartitioning(int[] array, int leftBound, int rightBound) {
+
+        if (leftBound >= rightBound) {
+            return;
+        }
+
+        int index = leftBound;
+        int lowerThanIndex = leftBound;
+        int greaterThanIndex = rightBound;
+
+        int mediumValue = array[leftBound];
+
+        while (index <= greaterThanIndex) {
+            if (array[index] < mediumValue) {
+                ArrayUtils.swap(array, index++, lowerThanIndex++);
+            } else if (array[index] > mediumValue) {
+                ArrayUtils.swap(array, index, greaterThanIndex--);
+            } else {
+                index++;
+            }
+        }
+
+        sortWith3WayPartitioning(array, leftBound, lowerThanIndex - 1);
+        sortWith3WayPartitioning(array, greaterThanIndex + 1, rightBound);
+    }
+
+    private static void sortWithBlockPartitioning(long[] array, int leftBound, int rightBound, int[] leftOffsets,
+                                                  int[] rightOffsets) {
+
+        while (rightBound - leftBound >= BLOCK_PARTITION_THRESHOLD) {
+            BlockPartition.movePivotToEnd(array, leftBound, rightBound);
+
+            int pivotIndex = BlockPartition.partition(array, leftBound, rightBound, leftOffsets, rightOffsets);
+
+            // recursion goes into the smaller part only, so the stack stays O(log n) deep
+            if (pivotIndex - leftBound < rightBound - pivotIndex) {
+                sortWithBlockPartitioning(array, leftBound, pivotIndex - 1, leftOffsets, rightOffsets);
+                leftBound = pivotIndex + 1;
+            } else {
+                sortWithBlockPartitioning(array, pivotIndex + 1, rightBound, leftOffsets, rightOffsets);
+                rightBound = pivotIndex - 1;
+            }
+        }
+
+        sort(array, leftBound, rightBound);
+    }
+
+    private static void sort(long[] array, int leftBound, int rightBound) {
+        if (leftBound >= rightBound) {
+            return;
+        }
+
+        int leftIndex = leftBound - 1;
+        int rightIndex = rightBound + 1;
+
+        long mediumValue = array[leftBound + (rightBound - leftBound) / 2];
+
+        while (leftIndex < rightIndex) {
+
+            do {
+                leftIndex++;
+            } while (array[leftIndex] < mediumValue);
+
+            do {
+                rightIndex--;
+            } while (array[rightIndex] > mediumValue);
+
+            if (leftIndex < rightIndex) {
+                ArrayUtils.swap(array, leftIndex, rightIndex);
+            }
+        }
+
+        sort(array, leftBound, rightIndex);
+        sort(array, rightIndex + 1, rightBound);
+    }
+
+    private static void sortWith3WayPartitioning(long[] array, int leftBound, int rightBound) {
+
+        if (leftBound >= rightBound) {
+            return;
+        }
+
+        int index = leftBound;
+        int lowerThanIndex = leftBound;
+        int greaterThanIndex = rightBound;
+
+        long mediumValue = array[leftBound];
+
+        while (index <= greaterThanIndex) {
+            if (array[index] < mediumValue) {
+                ArrayUtils.swap(array, index++, lowerThanIndex++);
+            } else if (array[index] > mediumValue) {
+                ArrayUtils.swap(array, index, greaterThanIndex--);
+            } else {
+                index++;
+            }
+        }
+
+        sortWith3WayPartitioning(array, leftBound, lowerThanIndex - 1);
+        sortWith3WayPartitioning(array, greaterThanIndex + 1, rightBound);
+    }
+
+    private static void sort(double[] array, int leftBound, int rightBound) {
+        if (leftBound >= rightBound) {
+            return;
+        }
+
+        int leftIndex = leftBound - 1;
+        int rightIndex = rightBound + 1;
+
+        double mediumValue = array[leftBound + (rightBound - leftBound) / 2];
+
+        while (leftIndex < rightIndex) {
+
+            do {
+                leftIndex++;
+            } while (Double.compare(array[leftIndex], mediumValue) < 0);
+
+            do {
+                rightIndex--;
+            } while (Double.compare(array[rightIndex], mediumValue) > 0);
+
+            if (leftIndex < rightIndex) {
+                ArrayUtils.swap(array, leftIndex, rightIndex);
+            }
+        }
+
+        sort(array, leftBound, rightIndex);
+        sort(array, rightIndex + 1, rightBound);
+    }
+
+    private static void sortWith3WayPartitioning(double[] array, int leftBound, int rightBound) {
+
+        if (leftBound >= rightBound) {
+            return;
+        }
+
+        int index = leftBound;
+        int lowerThanIndex = leftBound;
+        int greaterThanIndex = rightBound;
+
+        double mediumValue = array[leftBound];
+
+        while (index <= greaterThanIndex) {
+            int cmp = Double.compare(array[index], mediumValue);
+
+            if (cmp < 0) {
+                ArrayUtils.swap(array, index++, lowerThanIndex++);
+            } else if (cmp > 0) {
+                ArrayUtils.swap(array, index, greaterThanIndex--);
+            } else {
+                index++;
+            }
+        }
+
+        sortWith3WayPartitioning(array, leftBound, lowerThanIndex - 1);
+        sortWith3WayPartitioning(array, greaterThanIndex + 1, rightBound);
+    }
+
+    private static class ParallelSortTask<T> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final T[] array;
+
+        private final Comparator<T> comparator;
+
+        private final int leftBound;
+
+        private final int rightBound;
+
+        private final int threshold;
+
+        ParallelSortTask(T[] array, Comparator<T> comparator, int leftBound, int rightBound, int threshold) {
+            this.array = array;
+            this.comparator = comparator;
+            this.leftBound = leftBound;
+            this.rightBound = rightBound;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (rightBound - leftBound < threshold) {
+                sort(array, comparator, leftBound, rightBound);
+                return;
+            }
+
+            int rightIndex = partition(array, comparator, leftBound, rightBound);
+
+            invokeAll(
+                    new ParallelSortTask<>(array, comparator, leftBound, rightIndex, threshold),
+                    new ParallelSortTask<>(array, comparator, rightIndex + 1, rightBound, threshold)
+            );
+        }
+    }
 }
@@ -0,0 +1,234 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+public class RadixSort {
+
+    private static final int DIGIT_BITS = 8;
+
+    private static final int RADIX = 1 << DIGIT_BITS;
+
+    private static final int DIGIT_MASK = RADIX - 1;
+
+    private static final int DIGITS = Long.SIZE / DIGIT_BITS;
+
+    /**
+     * Buckets of this size or smaller are finished with insertion sort by MSD sort
+     */
+    private static final int INSERTION_SORT_CUTOFF = 16;
+
+    /**
+     * Stable sort by {@code long} keys which uses linear time. Keys are extracted only once per element per pass, no
+     * comparisons are made at all.
+     *
+     * @param array
+     * @param keyExtractor
+     * @param <T>
+     */
+    public static <T> void sortByLongKey(T[] array, ToLongFunction<T> keyExtractor) {
+        sortByLongKey(array, keyExtractor, newScratch(array));
+    }
+
+    /**
+     * Same as {@link #sortByLongKey(Object[], ToLongFunction)}, but uses the given {@code scratch} array as a buffer, so
+     * the same buffer may be reused for many sorts. {@code scratch} has to be at least as long as {@code array}.
+     *
+     * @param array
+     * @param keyExtractor
+     * @param scratch
+     * @param <T>
+     */
+    public static <T> void sortByLongKey(T[] array, ToLongFunction<T> keyExtractor, T[] scratch) {
+        // flipping the sign bit makes unsigned order of keys the same as the signed one
+        sort(array, value -> keyExtractor.applyAsLong(value) ^ Long.MIN_VALUE, scratch);
+    }
+
+    /**
+     * Same as {@link #sortByLongKey(Object[], ToLongFunction)}, but for {@code int} keys, which take at most four
+     * passes.
+     *
+     * @param array
+     * @param keyExtractor
+     * @param <T>
+     */
+    public static <T> void sortByIntKey(T[] array, ToIntFunction<T> keyExtractor) {
+        sortByIntKey(array, keyExtractor, newScratch(array));
+    }
+
+    /**
+     * Same as {@link #sortByIntKey(Object[], ToIntFunction)}, but uses the given {@code scratch} array as a buffer.
+     * {@code scratch} has to be at least as long as {@code array}.
+     *
+     * @param array
+     * @param keyExtractor
+     * @param scratch
+     * @param <T>
+     */
+    public static <T> void sortByIntKey(T[] array, ToIntFunction<T> keyExtractor, T[] scratch) {
+        sort(array, value -> (keyExtractor.applyAsInt(value) ^ Integer.MIN_VALUE) & 0xFFFFFFFFL, scratch);
+    }
+
+    /**
+     * Sorts by keys which are compared as unsigned values. Digits which are the same for all keys are skipped. LSD sort
+     * is used unless keys are sparse, i.e. they have noticeably more significant bits than it is needed to tell
+     * {@code array.length} elements apart. In that case MSD sort is used as most of its buckets become short (and are
+     * finished with insertion sort) long before the last digit.
+     */
+    private static <T> void sort(T[] array, ToLongFunction<T> keyExtractor, T[] scratch) {
+
+        if (scratch.length < array.length) {
+            throw new IllegalArgumentException("Scratch buffer is shorter than the array!");
+        }
+
+        if (array.length < 2) {
+            return;
+        }
+
+        int[] counts = new int[DIGITS * RADIX];
+
+        long firstKey = keyExtractor.applyAsLong(array[0]);
+        long differentBits = 0;
+
+        // histograms for all digits are collected in a single pass
+        for (T value : array) {
+            long key = keyExtractor.applyAsLong(value);
+            differentBits |= key ^ firstKey;
+
+            for (int digit = 0; digit < DIGITS; digit++) {
+                counts[digit * RADIX + ((int) (key >>> (digit * DIGIT_BITS)) & DIGIT_MASK)]++;
+            }
+        }
+
+        if (differentBits == 0) {
+            return;
+        }
+
+        int activeDigits = (Long.SIZE - Long.numberOfLeadingZeros(differentBits) + DIGIT_BITS - 1) / DIGIT_BITS;
+        int log2Size = 31 - Integer.numberOfLeadingZeros(array.length);
+
+        if (activeDigits * DIGIT_BITS > log2Size + 2 * DIGIT_BITS) {
+            int[][] bucketCounts = new int[activeDigits][RADIX + 1];
+            msdSort(array, keyExtractor, scratch, 0, array.length, activeDigits - 1, differentBits, bucketCounts);
+        } else {
+            lsdSort(array, keyExtractor, scratch, counts, differentBits);
+        }
+    }
+
+    private static <T> void lsdSort(T[] array, ToLongFunction<T> keyExtractor, T[] scratch, int[] counts,
+                                    long differentBits) {
+        T[] from = array;
+        T[] to = scratch;
+
+        for (int digit = 0; digit < DIGITS; digit++) {
+            int shift = digit * DIGIT_BITS;
+
+            if (((differentBits >>> shift) & DIGIT_MASK) == 0) {
+                continue;
+            }
+
+            // turn the histogram into starting offsets of the buckets
+            int offset = digit * RADIX;
+            int total = 0;
+
+            for (int i = offset; i < offset + RADIX; i++) {
+                int count = counts[i];
+                counts[i] = total;
+                total += count;
+            }
+
+            for (int i = 0; i < array.length; i++) {
+                T value = from[i];
+                to[counts[offset + ((int) (keyExtractor.applyAsLong(value) >>> shift) & DIGIT_MASK)]++] = value;
+            }
+
+            T[] tmp = from;
+            from = to;
+            to = tmp;
+        }
+
+        if (from != array) {
+            System.arraycopy(from, 0, array, 0, array.length);
+        }
+    }
+
+    /**
+     * Sorts {@code [leftBound, rightBound)} by digits from {@code digit} down to zero. Digits which don't differ
+     * between keys are skipped. {@code bucketCounts} holds one counters array per digit, so they aren't allocated on
+     * each call.
+     */
+    private static <T> void msdSort(T[] array, ToLongFunction<T> keyExtractor, T[] scratch, int leftBound,
+                                    int rightBound, int digit, long differentBits, int[][] bucketCounts) {
+
+        while (digit >= 0 && ((differentBits >>> (digit * DIGIT_BITS)) & DIGIT_MASK) == 0) {
+            digit--;
+        }
+
+        if (digit < 0) {
+            return;
+        }
+
+        if (rightBound - leftBound <= INSERTION_SORT_CUTOFF) {
+            insertionSort(array, keyExtractor, leftBound, rightBound);
+            return;
+        }
+
+        int shift = digit * DIGIT_BITS;
+        int[] counts = bucketCounts[digit];
+
+        Arrays.fill(counts, 0);
+
+        for (int i = leftBound; i < rightBound; i++) {
+            counts[((int) (keyExtractor.applyAsLong(array[i]) >>> shift) & DIGIT_MASK) + 1]++;
+        }
+
+        for (int i = 0; i < RADIX; i++) {
+            counts[i + 1] += counts[i];
+        }
+
+        for (int i = leftBound; i < rightBound; i++) {
+            T value = array[i];
+            scratch[leftBound + counts[(int) (keyExtractor.applyAsLong(value) >>> shift) & DIGIT_MASK]++] = value;
+        }
+
+        System.arraycopy(scratch, leftBound, array, leftBound, rightBound - leftBound);
+
+        // after the distribution counts[i] is where bucket i ends (and bucket i + 1 starts)
+        int bucketStart = leftBound;
+
+        for (int i = 0; i < RADIX; i++) {
+            int bucketEnd = leftBound + counts[i];
+
+            if (bucketEnd - bucketStart > 1) {
+                msdSort(array, keyExtractor, scratch, bucketStart, bucketEnd, digit - 1, differentBits, bucketCounts);
+            }
+
+            bucketStart = bucketEnd;
+        }
+    }
+
+    private static <T> void insertionSort(T[] array, ToLongFunction<T> keyExtractor, int leftBound, int rightBound) {
+        for (int i = leftBound + 1; i < rightBound; i++) {
+            T value = array[i];
+            long key = keyExtractor.applyAsLong(value);
+            int j = i - 1;
+
+            while (j >= leftBound && Long.compareUnsigned(keyExtractor.applyAsLong(array[j]), key) > 0) {
+                array[j + 1] = array[j];
+                j--;
+            }
+
+            array[j + 1] = value;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T[] newScratch(T[] array) {
+        return (T[]) Array.newInstance(array.getClass().getComponentType(), array.length);
+    }
+}
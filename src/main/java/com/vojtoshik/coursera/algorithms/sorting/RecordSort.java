@@ -0,0 +1,210 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Sorts fixed-width records packed into a {@link ByteBuffer} (direct ones included) in place, so no Java objects are
+ * created for them. Records are compared by a single {@code int}, {@code long} or {@code double} key at a fixed offset,
+ * read in the byte order of the buffer.
+ *
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+public class RecordSort {
+
+    public enum KeyType {
+        INT(Integer.BYTES),
+        LONG(Long.BYTES),
+        /**
+         * Ordered the same way as {@link Double#compare(double, double)} does
+         */
+        DOUBLE(Double.BYTES);
+
+        private final int size;
+
+        KeyType(int size) {
+            this.size = size;
+        }
+    }
+
+    /**
+     * Subarrays of this size or smaller are finished with insertion sort
+     */
+    private static final int INSERTION_SORT_CUTOFF = 8;
+
+    /**
+     * Sorts records between position and limit of {@code buffer}. Uses the same Hoare partitioning as
+     * {@link QuickSort#introSort(Object[], java.util.Comparator)} with median-of-three pivots and falls back to heap sort
+     * if recursion gets too deep, so it takes O(n log n) time in the worst case. Records are swapped eight bytes at a
+     * time, so no buffer is allocated at all.
+     *
+     * @param buffer
+     * @param recordSize size of a single record in bytes
+     * @param keyOffset offset of the key within the record
+     * @param keyType
+     */
+    public static void sort(ByteBuffer buffer, int recordSize, int keyOffset, KeyType keyType) {
+
+        if (recordSize <= 0 || keyOffset < 0 || keyOffset + keyType.size > recordSize) {
+            throw new IllegalArgumentException("Key doesn't fit into the record!");
+        }
+
+        if (buffer.remaining() % recordSize != 0) {
+            throw new IllegalArgumentException("Buffer size isn't a multiple of the record size!");
+        }
+
+        int records = buffer.remaining() / recordSize;
+
+        new Records(buffer, recordSize, keyOffset, keyType).sort(0, records - 1, 2 * log2(records));
+    }
+
+    private static int log2(int value) {
+        return value == 0 ? 0 : 31 - Integer.numberOfLeadingZeros(value);
+    }
+
+    private static class Records {
+
+        private final ByteBuffer buffer;
+
+        private final int base;
+
+        private final int recordSize;
+
+        private final int keyOffset;
+
+        private final KeyType keyType;
+
+        Records(ByteBuffer buffer, int recordSize, int keyOffset, KeyType keyType) {
+            this.buffer = buffer;
+            this.base = buffer.position();
+            this.recordSize = recordSize;
+            this.keyOffset = keyOffset;
+            this.keyType = keyType;
+        }
+
+        void sort(int leftBound, int rightBound, int depthLimit) {
+
+            while (rightBound - leftBound >= INSERTION_SORT_CUTOFF) {
+
+                if (depthLimit-- == 0) {
+                    heapSort(leftBound, rightBound);
+                    return;
+                }
+
+                int middle = leftBound + (rightBound - leftBound) / 2;
+                long mediumValue = key(medianOf3(leftBound, middle, rightBound));
+
+                int leftIndex = leftBound - 1;
+                int rightIndex = rightBound + 1;
+
+                while (leftIndex < rightIndex) {
+
+                    do {
+                        leftIndex++;
+                    } while (key(leftIndex) < mediumValue);
+
+                    do {
+                        rightIndex--;
+                    } while (key(rightIndex) > mediumValue);
+
+                    if (leftIndex < rightIndex) {
+                        swap(leftIndex, rightIndex);
+                    }
+                }
+
+                // recursion goes into the smaller part only, so the stack stays O(log n) deep
+                if (rightIndex - leftBound < rightBound - rightIndex) {
+                    sort(leftBound, rightIndex, depthLimit);
+                    leftBound = rightIndex + 1;
+                } else {
+                    sort(rightIndex + 1, rightBound, depthLimit);
+                    rightBound = rightIndex;
+                }
+            }
+
+            for (int i = leftBound + 1; i <= rightBound; i++) {
+                for (int j = i; j > leftBound && key(j - 1) > key(j); j--) {
+                    swap(j - 1, j);
+                }
+            }
+        }
+
+        private void heapSort(int leftBound, int rightBound) {
+            int size = rightBound - leftBound + 1;
+
+            for (int k = size / 2 - 1; k >= 0; k--) {
+                sink(leftBound, k, size);
+            }
+
+            while (size > 1) {
+                swap(leftBound, leftBound + --size);
+                sink(leftBound, 0, size);
+            }
+        }
+
+        private void sink(int offset, int k, int size) {
+            while (2 * k + 1 < size) {
+                int child = 2 * k + 1;
+
+                if (child + 1 < size && key(offset + child) < key(offset + child + 1)) {
+                    child++;
+                }
+
+                if (key(offset + k) >= key(offset + child)) {
+                    return;
+                }
+
+                swap(offset + k, offset + child);
+                k = child;
+            }
+        }
+
+        private int medianOf3(int i, int j, int k) {
+            long keyI = key(i);
+            long keyJ = key(j);
+            long keyK = key(k);
+
+            if (keyI < keyJ) {
+                return keyJ < keyK ? j : keyI < keyK ? k : i;
+            }
+
+            return keyK < keyJ ? j : keyK < keyI ? k : i;
+        }
+
+        /**
+         * Returns key of the record as a long, which has the same order as the key itself
+         */
+        private long key(int record) {
+            int index = base + record * recordSize + keyOffset;
+
+            switch (keyType) {
+                case INT:
+                    return buffer.getInt(index);
+                case LONG:
+                    return buffer.getLong(index);
+                default:
+                    // flipping all bits but the sign one for negative values makes order of bits the same as the order of
+                    // Double.compare(), which puts -0.0 before 0.0 and NaN (always canonical here) after everything
+                    long bits = Double.doubleToLongBits(buffer.getDouble(index));
+                    return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+            }
+        }
+
+        private void swap(int record1, int record2) {
+            int index1 = base + record1 * recordSize;
+            int index2 = base + record2 * recordSize;
+            int end1 = index1 + recordSize;
+
+            for (; index1 + Long.BYTES <= end1; index1 += Long.BYTES, index2 += Long.BYTES) {
+                long tmp = buffer.getLong(index1);
+                buffer.putLong(index1, buffer.getLong(index2));
+                buffer.putLong(index2, tmp);
+            }
+
+            for (; index1 < end1; index1++, index2++) {
+                byte tmp = buffer.get(index1);
+                buffer.put(index1, buffer.get(index2));
+                buffer.put(index2, tmp);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+/**
+ * Sorting algorithm with the order of elements already bound to it, see {@link Sorters} for implementations
+ *
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+@FunctionalInterface
+public interface Sorter<T> {
+
+    void sort(T[] array);
+}
@@ -0,0 +1,90 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+import java.util.Comparator;
+import java.util.function.ToLongFunction;
+
+/**
+ * Factory methods for {@link Sorter}
+ *
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+public class Sorters {
+
+    /**
+     * @see QuickSort#introSort(Object[], Comparator)
+     */
+    public static <T> Sorter<T> quickSort(Comparator<T> comparator) {
+        return array -> QuickSort.introSort(array, comparator);
+    }
+
+    /**
+     * @see QuickSort#sortWith3WayPartitioningFast(Object[], Comparator)
+     */
+    public static <T> Sorter<T> threeWayQuickSort(Comparator<T> comparator) {
+        return array -> QuickSort.sortWith3WayPartitioningFast(array, comparator);
+    }
+
+    /**
+     * @see MergeSort#sort(Object[], Comparator)
+     */
+    public static <T> Sorter<T> mergeSort(Comparator<T> comparator) {
+        return array -> MergeSort.sort(array, comparator);
+    }
+
+    /**
+     * @see RadixSort#sortByLongKey(Object[], ToLongFunction)
+     */
+    public static <T> Sorter<T> radixSort(ToLongFunction<T> keyExtractor) {
+        return array -> RadixSort.sortByLongKey(array, keyExtractor);
+    }
+
+    /**
+     * Sorter which takes a small sample of every array it's given and picks 2-way quick sort, 3-way quick sort or
+     * merge sort depending on how presorted the array is and how many equal elements it has
+     *
+     * @param comparator
+     * @param <T>
+     * @return sorter
+     */
+    public static <T> Sorter<T> auto(Comparator<T> comparator) {
+        return new AdaptiveSorter<>(comparator, null, false);
+    }
+
+    /**
+     * Same as {@link #auto(Comparator)}, but may also pick radix sort. {@code keyExtractor} has to define the same order
+     * as {@code comparator} does.
+     *
+     * @param comparator
+     * @param keyExtractor
+     * @param <T>
+     * @return sorter
+     */
+    public static <T> Sorter<T> auto(Comparator<T> comparator, ToLongFunction<T> keyExtractor) {
+        return new AdaptiveSorter<>(comparator, keyExtractor, false);
+    }
+
+    /**
+     * Same as {@link #auto(Comparator)}, but the algorithm is picked only once, by the first array, and then used for
+     * all the following ones. Meant to be kept in a field at a call site which always sorts similar data.
+     *
+     * @param comparator
+     * @param <T>
+     * @return sorter
+     */
+    public static <T> Sorter<T> autoCached(Comparator<T> comparator) {
+        return new AdaptiveSorter<>(comparator, null, true);
+    }
+
+    /**
+     * Same as {@link #auto(Comparator, ToLongFunction)}, but the algorithm is picked only once, see
+     * {@link #autoCached(Comparator)}
+     *
+     * @param comparator
+     * @param keyExtractor
+     * @param <T>
+     * @return sorter
+     */
+    public static <T> Sorter<T> autoCached(Comparator<T> comparator, ToLongFunction<T> keyExtractor) {
+        return new AdaptiveSorter<>(comparator, keyExtractor, true);
+    }
+}
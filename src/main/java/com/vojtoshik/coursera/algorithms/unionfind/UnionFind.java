@@ -0,0 +1,109 @@
+package com.vojtoshik.coursera.algorithms.unionfind;
+
+import java.util.Arrays;
+
+/**
+ * Union-find over elements {@code 0..n - 1} with union by rank and path halving, so any sequence of operations takes
+ * almost linear time. Ranks never exceed log2(n), so they are stored in bytes. Instances can be {@link #reset()} and
+ * reused, which saves allocating (and collecting) large arrays again and again.
+ * <p>
+ * Arguments aren't validated, passing an element outside of {@code 0..n - 1} ends up with
+ * {@link ArrayIndexOutOfBoundsException}.
+ *
+ * @author Anton Voitovych <vojtoshik@gmail.com>
+ */
+public class UnionFind {
+
+    private final int[] parent;
+
+    private final byte[] rank;
+
+    private int count;
+
+    public UnionFind(int n) {
+
+        if (n < 0) {
+            throw new IllegalArgumentException("Number of elements can't be negative!");
+        }
+
+        parent = new int[n];
+        rank = new byte[n];
+        reset();
+    }
+
+    /**
+     * Puts every element back into its own component, takes O(n) time and doesn't allocate anything
+     */
+    public void reset() {
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+
+        Arrays.fill(rank, (byte) 0);
+        count = parent.length;
+    }
+
+    /**
+     * Returns root of the component {@code p} belongs to. Every visited element is linked to its grandparent on the
+     * way, which halves the path for the following calls.
+     *
+     * @param p
+     * @return root of the component
+     */
+    public int find(int p) {
+        while (parent[p] != p) {
+            parent[p] = parent[parent[p]];
+            p = parent[p];
+        }
+
+        return p;
+    }
+
+    public boolean connected(int p, int q) {
+        return find(p) == find(q);
+    }
+
+    /**
+     * Merges components of {@code p} and {@code q}, the root of the lower rank one is linked to the other one
+     *
+     * @param p
+     * @param q
+     * @return root of the merged component
+     */
+    public int union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+
+        if (rootP == rootQ) {
+            return rootP;
+        }
+
+        count--;
+
+        if (rank[rootP] < rank[rootQ]) {
+            parent[rootP] = rootQ;
+            return rootQ;
+        }
+
+        if (rank[rootP] == rank[rootQ]) {
+            rank[rootP]++;
+        }
+
+        parent[rootQ] = rootP;
+        return rootP;
+    }
+
+    /**
+     * Returns number of components
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns number of elements
+     */
+    public int size() {
+        return parent.length;
+    }
+}
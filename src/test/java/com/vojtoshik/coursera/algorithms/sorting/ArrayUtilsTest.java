@@ -3,10 +3,15 @@ package com.vojtoshik.coursera.algorithms.sorting;
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.fail;
 
 public class ArrayUtilsTest {
 
@@ -43,4 +48,97 @@ public class ArrayUtilsTest {
 
         assertEquals(original, arrayToShuffle);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testApplyPermutation() {
+        double[] keys = {3.5, -1, 7, 0, -1, 2};
+        int[] ids = {0, 1, 2, 3, 4, 5};
+        long[] payload = {30, 10, 70, 0, 11, 20};
+
+        int[] permutation = QuickSort.argsort(keys);
+        int[] permutationCopy = Arrays.copyOf(permutation, permutation.length);
+
+        ArrayUtils.applyPermutation(permutation, keys);
+        ArrayUtils.applyPermutation(permutation, ids);
+        ArrayUtils.applyPermutation(permutation, payload);
+
+        assertEquals(keys, new double[]{-1, -1, 0, 2, 3.5, 7});
+        assertEquals(ids, new int[]{1, 4, 3, 5, 0, 2});
+        assertEquals(payload, new long[]{10, 11, 0, 20, 30, 70});
+        assertEquals(permutation, permutationCopy);
+    }
+
+    @Test
+    public void testApplyPermutationRejectsNonPermutations() {
+        int[][] invalid = {{0, 0}, {1, 2, 0, 1}, {0, 2}, {-1, 0}, {2, 0, 1, 3, 3}};
+
+        for (int[] permutation : invalid) {
+            int[] original = Arrays.copyOf(permutation, permutation.length);
+            int[] array = new int[permutation.length];
+
+            try {
+                ArrayUtils.applyPermutation(permutation, array);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+
+            assertEquals(permutation, original);
+        }
+    }
+
+    @Test
+    public void testShuffleProducesAllPermutations() {
+        Set<List<Integer>> permutations = new HashSet<>();
+        SplittableRandom random = new SplittableRandom(42);
+
+        for (int i = 0; i < 1000; i++) {
+            Integer[] array = {1, 2, 3};
+            ArrayUtils.shuffle(array, random);
+            permutations.add(Arrays.asList(array));
+        }
+
+        assertEquals(permutations.size(), 6);
+    }
+
+    @Test
+    public void testSeededShuffleIsReproducible() {
+        int[] array1 = new int[1000];
+        int[] array2 = new int[1000];
+
+        for (int i = 0; i < array1.length; i++) {
+            array1[i] = array2[i] = i;
+        }
+
+        ArrayUtils.shuffle(array1, new Random(7));
+        ArrayUtils.shuffle(array2, new Random(7));
+
+        assertEquals(array1, array2);
+    }
+
+    @Test
+    public void testParallelShuffle() {
+        // sizes which split into a power of two blocks, an uneven number of blocks with a shorter last one, and the
+        // maximum number of blocks
+        for (int numberOfElements : new int[]{1 << 20, 300_007, 5_000_000}) {
+            Integer[] original = new Integer[numberOfElements];
+
+            for (int i = 0; i < numberOfElements; i++) {
+                original[i] = i;
+            }
+
+            Integer[] shuffled1 = Arrays.copyOf(original, numberOfElements);
+            Integer[] shuffled2 = Arrays.copyOf(original, numberOfElements);
+
+            ArrayUtils.parallelShuffle(shuffled1, new SplittableRandom(1));
+            ArrayUtils.parallelShuffle(shuffled2, new SplittableRandom(1));
+
+            assertEquals(shuffled1, shuffled2);
+            assertNotEquals(shuffled1, original);
+
+            Arrays.sort(shuffled1);
+
+            assertEquals(shuffled1, original);
+        }
+    }
+}
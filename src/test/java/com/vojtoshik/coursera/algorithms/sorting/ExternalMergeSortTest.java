@@ -0,0 +1,133 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class ExternalMergeSortTest {
+
+    private static final int RECORD_SIZE = 12;
+
+    private static final Comparator<byte[]> BY_KEY =
+            Comparator.comparingLong(record -> ByteBuffer.wrap(record).getLong());
+
+    @Test
+    public void testSortWithSeveralMergePasses() throws IOException {
+        checkSort(10000, 700, 3);
+    }
+
+    @Test
+    public void testSortWithSingleRun() throws IOException {
+        checkSort(500, 700, 3);
+    }
+
+    @Test
+    public void testSortEmptyFile() throws IOException {
+        checkSort(0, 700, 3);
+    }
+
+    @Test
+    public void testRunsAreDeletedIfSortFails() throws IOException {
+        Path directory = Files.createTempDirectory("external-sort");
+        Path input = directory.resolve("input");
+        Path output = directory.resolve("output");
+
+        Files.write(input, randomRecords(10000).array());
+
+        AtomicLong comparisons = new AtomicLong();
+        Comparator<byte[]> counting = (first, second) -> {
+            comparisons.incrementAndGet();
+            return BY_KEY.compare(first, second);
+        };
+
+        try {
+            new ExternalMergeSort(RECORD_SIZE, counting, 700, 3, directory).sort(input, output);
+            Files.delete(output);
+
+            // comparator fails at different points of the sort, including the intermediate merge passes
+            for (long limit = comparisons.get() / 10; limit < comparisons.get(); limit += comparisons.get() / 10) {
+                AtomicLong calls = new AtomicLong(limit);
+                Comparator<byte[]> failing = (first, second) -> {
+                    if (calls.decrementAndGet() < 0) {
+                        throw new IllegalStateException();
+                    }
+
+                    return BY_KEY.compare(first, second);
+                };
+
+                try {
+                    new ExternalMergeSort(RECORD_SIZE, failing, 700, 3, directory).sort(input, output);
+                    fail();
+                } catch (IllegalStateException e) {
+                    // expected
+                }
+
+                Files.deleteIfExists(output);
+                assertEquals(directory.toFile().list(), new String[] {"input"});
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static ByteBuffer randomRecords(int numberOfRecords) {
+        Random random = new Random();
+        ByteBuffer data = ByteBuffer.allocate(numberOfRecords * RECORD_SIZE);
+
+        for (int i = 0; i < numberOfRecords; i++) {
+            data.putLong(random.nextInt(1000)).putInt(i);
+        }
+
+        return data;
+    }
+
+    private static void checkSort(int numberOfRecords, int recordsPerRun, int mergeFanIn) throws IOException {
+        Path directory = Files.createTempDirectory("external-sort");
+        Path input = directory.resolve("input");
+        Path output = directory.resolve("output");
+
+        Random random = new Random();
+        ByteBuffer data = ByteBuffer.allocate(numberOfRecords * RECORD_SIZE);
+        long[] keys = new long[numberOfRecords];
+
+        for (int i = 0; i < numberOfRecords; i++) {
+            keys[i] = random.nextInt(1000);
+            data.putLong(keys[i]).putInt(i);
+        }
+
+        Files.write(input, data.array());
+
+        try {
+            new ExternalMergeSort(RECORD_SIZE, BY_KEY, recordsPerRun, mergeFanIn, directory).sort(input, output);
+
+            ByteBuffer sorted = ByteBuffer.wrap(Files.readAllBytes(output));
+            Arrays.sort(keys);
+
+            assertEquals(sorted.capacity(), numberOfRecords * RECORD_SIZE);
+
+            for (long key : keys) {
+                assertEquals(sorted.getLong(), key);
+                sorted.getInt();
+            }
+
+            // only input and output are left, all the runs are deleted
+            assertEquals(directory.toFile().list().length, 2);
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+            Files.deleteIfExists(directory);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+
+public class HeapSortTest {
+
+    @Test
+    public void testSort() {
+        Random random = new Random();
+
+        for (int size = 0; size < 100; size++) {
+            Integer[] array = new Integer[size];
+
+            for (int i = 0; i < size; i++) {
+                array[i] = random.nextInt(20);
+            }
+
+            Integer[] expected = Arrays.copyOf(array, size);
+            Arrays.sort(expected);
+
+            HeapSort.sort(array, Comparator.<Integer>naturalOrder());
+
+            assertEquals(array, expected);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class MergeSortTest {
+
+    private static final Comparator<int[]> BY_KEY = Comparator.comparingInt(value -> value[0]);
+
+    @Test
+    public void testSortIsStable() {
+        Random random = new Random();
+
+        for (int[] input : inputs(random)) {
+            int[][] array = new int[input.length][];
+
+            for (int i = 0; i < input.length; i++) {
+                array[i] = new int[]{input[i], i};
+            }
+
+            int[][] expected = Arrays.copyOf(array, array.length);
+            Arrays.sort(expected, BY_KEY);
+
+            MergeSort.sort(array, BY_KEY);
+
+            assertEquals(array, expected);
+        }
+    }
+
+    @Test
+    public void testSortedInputTakesLinearTime() {
+        Integer[] array = new Integer[100000];
+
+        for (int i = 0; i < array.length; i++) {
+            array[i] = i / 3;
+        }
+
+        AtomicInteger comparisons = new AtomicInteger();
+
+        MergeSort.sort(array, (value1, value2) -> {
+            comparisons.incrementAndGet();
+            return Integer.compare(value1, value2);
+        });
+
+        assertTrue(comparisons.get() < array.length);
+    }
+
+    private static List<int[]> inputs(Random random) {
+        List<int[]> inputs = new ArrayList<>();
+
+        for (int size : new int[]{0, 1, 2, 31, 32, 33, 1000, 65536, 100003}) {
+            int[] randomValues = new int[size];
+            int[] fewValues = new int[size];
+            int[] descending = new int[size];
+            int[] sortedWithTail = new int[size];
+            int[] interleavedBlocks = new int[size];
+
+            for (int i = 0; i < size; i++) {
+                randomValues[i] = random.nextInt();
+                fewValues[i] = random.nextInt(4);
+                descending[i] = (size - i) / 2;
+                sortedWithTail[i] = i < size - size / 20 ? i : random.nextInt(size);
+                interleavedBlocks[i] = (i / 500) % 2 == 0 ? i : i - 10000;
+            }
+
+            inputs.addAll(Arrays.asList(randomValues, fewValues, descending, sortedWithTail, interleavedBlocks));
+        }
+
+        return inputs;
+    }
+}
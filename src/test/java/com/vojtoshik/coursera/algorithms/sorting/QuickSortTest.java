@@ -0,0 +1,228 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class QuickSortTest {
+
+    private static final Comparator<Integer> NATURAL_ORDER = Comparator.naturalOrder();
+
+    @Test
+    public void testParallelSort() {
+        Integer[] array = randomArray(100000, Integer.MAX_VALUE);
+        Integer[] expected = sorted(array);
+
+        QuickSort.parallelSort(array, NATURAL_ORDER);
+
+        assertEquals(array, expected);
+    }
+
+    @Test
+    public void testParallelSortInCustomPool() {
+        Integer[] array = randomArray(50000, 100);
+        Integer[] expected = sorted(array);
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+
+        try {
+            QuickSort.parallelSort(array, NATURAL_ORDER, pool, 16);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(array, expected);
+    }
+
+    @Test
+    public void testIntroSort() {
+        int size = 10000;
+        Integer[] ascending = new Integer[size];
+        Integer[] descending = new Integer[size];
+        Integer[] organPipe = new Integer[size];
+        Integer[] equal = new Integer[size];
+
+        for (int i = 0; i < size; i++) {
+            ascending[i] = i;
+            descending[i] = size - i;
+            organPipe[i] = Math.min(i, size - i);
+            equal[i] = 7;
+        }
+
+        for (Integer[] array : Arrays.asList(ascending, descending, organPipe, equal, randomArray(size, 1000),
+                randomArray(size, Integer.MAX_VALUE), randomArray(10, 5), randomArray(1, 5), new Integer[0])) {
+            Integer[] expected = sorted(array);
+
+            QuickSort.introSort(array, NATURAL_ORDER);
+
+            assertEquals(array, expected);
+        }
+    }
+
+    @Test
+    public void testSortWith3WayPartitioningFast() {
+        for (int bound : new int[]{1, 2, 10, 1000, Integer.MAX_VALUE}) {
+            for (int size : new int[]{0, 1, 15, 16, 17, 100, 20000}) {
+                Integer[] array = randomArray(size, bound);
+                Integer[] expected = sorted(array);
+
+                QuickSort.sortWith3WayPartitioningFast(array, NATURAL_ORDER);
+
+                assertEquals(array, expected);
+            }
+        }
+    }
+
+    @Test
+    public void testSelect() {
+        Random random = new Random();
+
+        for (int bound : new int[]{3, Integer.MAX_VALUE}) {
+            for (int size : new int[]{1, 2, 17, 1000, 30000}) {
+                Integer[] array = randomArray(size, bound);
+                Integer[] expected = sorted(array);
+                int k = random.nextInt(size);
+
+                assertEquals(QuickSort.select(array, k, NATURAL_ORDER), expected[k]);
+
+                for (int i = 0; i < k; i++) {
+                    assertTrue(array[i] <= expected[k]);
+                }
+
+                for (int i = k + 1; i < size; i++) {
+                    assertTrue(array[i] >= expected[k]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPartialSort() {
+        Integer[] array = randomArray(50000, 10000);
+        Integer[] expected = sorted(array);
+
+        QuickSort.partialSort(array, 1000, NATURAL_ORDER);
+
+        assertEquals(Arrays.copyOf(array, 1000), Arrays.copyOf(expected, 1000));
+        assertEquals(sorted(array), expected);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testSelectOutOfBounds() {
+        QuickSort.select(new Integer[]{1, 2}, 2, NATURAL_ORDER);
+    }
+
+    @Test
+    public void testArgsortIsStable() {
+        Random random = new Random();
+        int[] keys = new int[20000];
+
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt(100);
+        }
+
+        int[] permutation = QuickSort.argsort(keys);
+
+        for (int i = 1; i < keys.length; i++) {
+            int cmp = Integer.compare(keys[permutation[i - 1]], keys[permutation[i]]);
+            assertTrue(cmp < 0 || cmp == 0 && permutation[i - 1] < permutation[i]);
+        }
+    }
+
+    @Test
+    public void testPrimitiveSorts() {
+        Random random = new Random();
+        int[] ints = new int[10000];
+        long[] longs = new long[10000];
+
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = random.nextInt(50) - 25;
+            longs[i] = random.nextLong();
+        }
+
+        int[] expectedInts = Arrays.copyOf(ints, ints.length);
+        long[] expectedLongs = Arrays.copyOf(longs, longs.length);
+        Arrays.sort(expectedInts);
+        Arrays.sort(expectedLongs);
+
+        int[] intsCopy = Arrays.copyOf(ints, ints.length);
+        long[] longsCopy = Arrays.copyOf(longs, longs.length);
+
+        QuickSort.sort(ints);
+        QuickSort.sort(longs);
+        QuickSort.sortWith3WayPartitioning(intsCopy);
+        QuickSort.sortWith3WayPartitioning(longsCopy);
+
+        assertEquals(ints, expectedInts);
+        assertEquals(longs, expectedLongs);
+        assertEquals(intsCopy, expectedInts);
+        assertEquals(longsCopy, expectedLongs);
+    }
+
+    @Test
+    public void testBlockPartitioningOfLargePrimitiveArrays() {
+        Random random = new Random();
+        int size = 300000;
+
+        for (int bound : new int[]{1, 2, 1000, Integer.MAX_VALUE}) {
+            int[] ints = new int[size];
+            long[] longs = new long[size];
+
+            for (int i = 0; i < size; i++) {
+                ints[i] = random.nextInt(bound);
+                longs[i] = bound == Integer.MAX_VALUE ? random.nextLong() : random.nextInt(bound);
+            }
+
+            int[] expectedInts = Arrays.copyOf(ints, size);
+            long[] expectedLongs = Arrays.copyOf(longs, size);
+            Arrays.sort(expectedInts);
+            Arrays.sort(expectedLongs);
+
+            QuickSort.sort(ints);
+            QuickSort.sort(longs);
+
+            assertEquals(ints, expectedInts);
+            assertEquals(longs, expectedLongs);
+        }
+    }
+
+    @Test
+    public void testDoubleSortUsesDoubleCompareOrdering() {
+        double[] array = {1.5, Double.NaN, 0.0, -0.0, Double.NEGATIVE_INFINITY, -0.0, Double.NaN, 0.0, -3};
+        double[] expected = Arrays.copyOf(array, array.length);
+        Arrays.sort(expected);
+
+        double[] copy = Arrays.copyOf(array, array.length);
+
+        QuickSort.sort(array);
+        QuickSort.sortWith3WayPartitioning(copy);
+
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(Double.compare(array[i], expected[i]), 0);
+            assertEquals(Double.compare(copy[i], expected[i]), 0);
+        }
+    }
+
+    private static Integer[] randomArray(int size, int bound) {
+        Random random = new Random();
+        Integer[] array = new Integer[size];
+
+        for (int i = 0; i < size; i++) {
+            array[i] = random.nextInt(bound);
+        }
+
+        return array;
+    }
+
+    private static Integer[] sorted(Integer[] array) {
+        Integer[] copy = Arrays.copyOf(array, array.length);
+        Arrays.sort(copy);
+        return copy;
+    }
+}
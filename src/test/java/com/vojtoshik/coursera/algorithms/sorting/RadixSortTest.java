@@ -0,0 +1,59 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+
+public class RadixSortTest {
+
+    @Test
+    public void testSortByLongKeyIsStable() {
+        Random random = new Random();
+
+        // small key range goes through LSD sort, full range of longs through MSD one
+        for (long bound : new long[]{1, 300, 100000, Long.MAX_VALUE}) {
+            for (int size : new int[]{0, 1, 17, 1000, 50000}) {
+                long[][] array = new long[size][];
+
+                for (int i = 0; i < size; i++) {
+                    long key = bound == Long.MAX_VALUE
+                            ? random.nextLong()
+                            : (long) (random.nextDouble() * bound) - bound / 2;
+                    array[i] = new long[]{key, i};
+                }
+
+                long[][] expected = Arrays.copyOf(array, size);
+                Arrays.sort(expected, Comparator.comparingLong(value -> value[0]));
+
+                RadixSort.sortByLongKey(array, value -> value[0]);
+
+                assertEquals(array, expected);
+            }
+        }
+    }
+
+    @Test
+    public void testSortByIntKeyWithScratch() {
+        Random random = new Random();
+        Integer[] scratch = new Integer[20000];
+
+        for (int bound : new int[]{10, Integer.MAX_VALUE}) {
+            Integer[] array = new Integer[10000];
+
+            for (int i = 0; i < array.length; i++) {
+                array[i] = random.nextInt(bound) - bound / 2;
+            }
+
+            Integer[] expected = Arrays.copyOf(array, array.length);
+            Arrays.sort(expected);
+
+            RadixSort.sortByIntKey(array, Integer::intValue, scratch);
+
+            assertEquals(array, expected);
+        }
+    }
+}
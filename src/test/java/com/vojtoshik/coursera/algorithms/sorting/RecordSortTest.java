@@ -0,0 +1,77 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+
+public class RecordSortTest {
+
+    @Test
+    public void testSortByIntKey() {
+        Random random = new Random();
+        int records = 10000;
+        int recordSize = 13;
+
+        // one record of padding before and after checks that only the part between position and limit is sorted
+        ByteBuffer buffer = ByteBuffer.allocateDirect((records + 2) * recordSize).order(ByteOrder.LITTLE_ENDIAN);
+        int[] keys = new int[records];
+
+        for (int i = 0; i < records; i++) {
+            keys[i] = random.nextInt(1000) - 500;
+            buffer.putInt((i + 1) * recordSize + 4, keys[i]);
+            buffer.putInt((i + 1) * recordSize + 8, keys[i] * 3);
+            buffer.put((i + 1) * recordSize + 12, (byte) keys[i]);
+        }
+
+        buffer.position(recordSize).limit((records + 1) * recordSize);
+
+        RecordSort.sort(buffer, recordSize, 4, RecordSort.KeyType.INT);
+
+        Arrays.sort(keys);
+
+        for (int i = 0; i < records; i++) {
+            int index = (i + 1) * recordSize;
+            assertEquals(buffer.getInt(index + 4), keys[i]);
+            assertEquals(buffer.getInt(index + 8), keys[i] * 3);
+            assertEquals(buffer.get(index + 12), (byte) keys[i]);
+        }
+
+        assertEquals(buffer.getInt(4), 0);
+    }
+
+    @Test
+    public void testSortByLongAndDoubleKeys() {
+        Random random = new Random();
+        int records = 5000;
+        int recordSize = 16;
+
+        ByteBuffer longs = ByteBuffer.allocate(records * recordSize);
+        ByteBuffer doubles = ByteBuffer.allocate(records * recordSize);
+        long[] longKeys = new long[records];
+        double[] doubleKeys = new double[records];
+        double[] specialValues = {Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+
+        for (int i = 0; i < records; i++) {
+            longKeys[i] = random.nextLong();
+            doubleKeys[i] = i % 10 == 0 ? specialValues[random.nextInt(specialValues.length)] : random.nextGaussian();
+            longs.putLong(i * recordSize, longKeys[i]);
+            doubles.putDouble(i * recordSize + 8, doubleKeys[i]);
+        }
+
+        RecordSort.sort(longs, recordSize, 0, RecordSort.KeyType.LONG);
+        RecordSort.sort(doubles, recordSize, 8, RecordSort.KeyType.DOUBLE);
+
+        Arrays.sort(longKeys);
+        Arrays.sort(doubleKeys);
+
+        for (int i = 0; i < records; i++) {
+            assertEquals(longs.getLong(i * recordSize), longKeys[i]);
+            assertEquals(Double.compare(doubles.getDouble(i * recordSize + 8), doubleKeys[i]), 0);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.vojtoshik.coursera.algorithms.sorting;
+
+import com.vojtoshik.coursera.algorithms.sorting.AdaptiveSorter.Algorithm;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+
+public class SortersTest {
+
+    private static final Comparator<Integer> NATURAL_ORDER = Comparator.naturalOrder();
+
+    @Test
+    public void testChoose() {
+        AdaptiveSorter<Integer> sorter = new AdaptiveSorter<>(NATURAL_ORDER, null, false);
+        AdaptiveSorter<Integer> sorterWithKeys = new AdaptiveSorter<>(NATURAL_ORDER, Integer::longValue, false);
+
+        Integer[] distinct = randomArray(100000, Integer.MAX_VALUE);
+        Integer[] duplicates = randomArray(100000, 20);
+        Integer[] sortedWithTail = sorted(distinct);
+
+        for (int i = sortedWithTail.length - 100; i < sortedWithTail.length; i++) {
+            sortedWithTail[i] = i % 7;
+        }
+
+        assertEquals(sorter.choose(distinct), Algorithm.QUICK_SORT);
+        assertEquals(sorter.choose(duplicates), Algorithm.THREE_WAY_QUICK_SORT);
+        assertEquals(sorter.choose(sortedWithTail), Algorithm.MERGE_SORT);
+        assertEquals(sorter.choose(randomArray(10, 10)), Algorithm.MERGE_SORT);
+        assertEquals(sorterWithKeys.choose(distinct), Algorithm.RADIX_SORT);
+        assertEquals(sorterWithKeys.choose(sortedWithTail), Algorithm.MERGE_SORT);
+    }
+
+    @Test
+    public void testAutoSorts() {
+        Sorter<Integer> cached = Sorters.autoCached(NATURAL_ORDER, Integer::longValue);
+
+        for (Integer[] array : Arrays.asList(randomArray(100000, Integer.MAX_VALUE), randomArray(100000, 20),
+                randomArray(100, 1000), randomArray(0, 1))) {
+            Integer[] expected = sorted(array);
+            Integer[] copy = Arrays.copyOf(array, array.length);
+            Integer[] secondCopy = Arrays.copyOf(array, array.length);
+
+            Sorters.auto(NATURAL_ORDER).sort(array);
+            Sorters.auto(NATURAL_ORDER, Integer::longValue).sort(copy);
+            cached.sort(secondCopy);
+
+            assertEquals(array, expected);
+            assertEquals(copy, expected);
+            assertEquals(secondCopy, expected);
+        }
+    }
+
+    private static Integer[] randomArray(int size, int bound) {
+        Random random = new Random();
+        Integer[] array = new Integer[size];
+
+        for (int i = 0; i < size; i++) {
+            array[i] = random.nextInt(bound);
+        }
+
+        return array;
+    }
+
+    private static Integer[] sorted(Integer[] array) {
+        Integer[] copy = Arrays.copyOf(array, array.length);
+        Arrays.sort(copy);
+        return copy;
+    }
+}
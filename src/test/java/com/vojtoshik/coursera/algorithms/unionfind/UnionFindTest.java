@@ -0,0 +1,66 @@
+package com.vojtoshik.coursera.algorithms.unionfind;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class UnionFindTest {
+
+    @Test
+    public void testUnion() {
+        UnionFind unionFind = new UnionFind(10);
+
+        assertEquals(unionFind.count(), 10);
+
+        unionFind.union(1, 2);
+        unionFind.union(3, 4);
+        int root = unionFind.union(2, 4);
+
+        assertEquals(unionFind.find(1), root);
+        assertEquals(unionFind.find(3), root);
+        assertTrue(unionFind.connected(1, 4));
+        assertFalse(unionFind.connected(1, 5));
+        assertEquals(unionFind.union(1, 3), root);
+        assertEquals(unionFind.count(), 7);
+    }
+
+    @Test
+    public void testMatchesNaiveComponentsAfterReset() {
+        Random random = new Random();
+        int n = 500;
+        UnionFind unionFind = new UnionFind(n);
+
+        for (int round = 0; round < 3; round++) {
+            unionFind.reset();
+            int[] component = new int[n];
+
+            for (int i = 0; i < n; i++) {
+                component[i] = i;
+            }
+
+            for (int k = 0; k < 300; k++) {
+                int p = random.nextInt(n);
+                int q = random.nextInt(n);
+                unionFind.union(p, q);
+
+                int oldComponent = component[q];
+
+                for (int i = 0; i < n; i++) {
+                    if (component[i] == oldComponent) {
+                        component[i] = component[p];
+                    }
+                }
+            }
+
+            for (int k = 0; k < 1000; k++) {
+                int p = random.nextInt(n);
+                int q = random.nextInt(n);
+                assertEquals(unionFind.connected(p, q), component[p] == component[q]);
+            }
+        }
+    }
+}